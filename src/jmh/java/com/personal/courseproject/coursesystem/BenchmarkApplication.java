@@ -0,0 +1,72 @@
+package com.personal.courseproject.coursesystem;
+
+import com.personal.courseproject.coursesystem.service.CourseManagementService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application against a private embedded PostgreSQL server laid out like the Flyway schema, so
+ * benchmarks exercise the real service, repositories, SQL and transaction handling. The server is stopped when
+ * the returned context is closed.
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start() {
+        EmbeddedPostgres postgres;
+        try {
+            postgres = EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ConfigurableApplicationContext context;
+        try {
+            context = new SpringApplicationBuilder(CourseSystemApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                            "--spring.datasource.username=postgres",
+                            "--spring.datasource.password=",
+                            "--spring.jpa.hibernate.ddl-auto=none",
+                            "--spring.sql.init.mode=always",
+                            "--spring.sql.init.schema-locations=classpath:benchmark-schema.sql",
+                            "--spring.main.banner-mode=off",
+                            "--logging.level.root=warn");
+        } catch (RuntimeException e) {
+            close(postgres);
+            throw e;
+        }
+        context.addApplicationListener(event -> {
+            if (event instanceof ContextClosedEvent) {
+                close(postgres);
+            }
+        });
+        return context;
+    }
+
+    private static void close(EmbeddedPostgres postgres) {
+        try {
+            postgres.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static List<Course> seed(CourseManagementService courseManagementService, int count) {
+        List<Course> courses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            courses.add(new Course("Benchmark course " + i, "Seeded course number " + i + " for benchmarks"));
+        }
+        courseManagementService.importCourses(courses.iterator());
+        return courseManagementService.getCourses(null, count);
+    }
+}
@@ -0,0 +1,63 @@
+package com.personal.courseproject.coursesystem;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CourseSerializationBenchmark {
+    @Param({"1", "100", "1000"})
+    private int listSize;
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    private CourseFormat format;
+
+    private ObjectMapper objectMapper;
+    private Course course;
+    private List<Course> courses;
+    private byte[] courseJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = format.isBinary() ? format.createBinaryMapper() : Jackson2ObjectMapperBuilder.json().build();
+        LocalDateTime createdAt = LocalDateTime.of(2021, 10, 25, 15, 45, 35);
+        course = new Course(1, "API Development using SpringBoot", "course description here", createdAt, createdAt.plusDays(1));
+        courses = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            courses.add(new Course(i, "API Development using SpringBoot " + i, "course description here", createdAt, createdAt.plusDays(1)));
+        }
+        courseJson = objectMapper.writeValueAsBytes(course);
+        // The size is fixed per format and list, so it is reported once next to the timings instead of measured.
+        System.out.printf("%n%s: %d bytes per course in a list of %d%n", format,
+                objectMapper.writeValueAsBytes(courses).length / listSize, listSize);
+    }
+
+    @Benchmark
+    public byte[] serializeCourse() throws Exception {
+        return objectMapper.writeValueAsBytes(course);
+    }
+
+    @Benchmark
+    public byte[] serializeCourseList() throws Exception {
+        return objectMapper.writeValueAsBytes(courses);
+    }
+
+    @Benchmark
+    public Course deserializeCourse() throws Exception {
+        return objectMapper.readValue(courseJson, Course.class);
+    }
+}
@@ -0,0 +1,84 @@
+package com.personal.courseproject.coursesystem.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.personal.courseproject.coursesystem.BenchmarkApplication;
+import com.personal.courseproject.coursesystem.Course;
+import com.personal.courseproject.coursesystem.service.CourseManagementService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CourseManagementControllerBenchmark {
+    private final AtomicLong sequence = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private Integer courseId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        CourseManagementService courseManagementService = context.getBean(CourseManagementService.class);
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        List<Course> courses = BenchmarkApplication.seed(courseManagementService, 1000);
+        courseId = courses.get(500).getId();
+        mockMvc = MockMvcBuilders.standaloneSetup(new CourseManagementController(courseManagementService, objectMapper))
+                .setMessageConverters(new ByteArrayHttpMessageConverter(), new MappingJackson2HttpMessageConverter(objectMapper))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getCourseById() throws Exception {
+        return mockMvc.perform(get("/api/courses/" + courseId)).andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int getAllCourses() throws Exception {
+        return mockMvc.perform(get("/api/courses").header("Accept-Encoding", "gzip")).andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int getPageOfCourses() throws Exception {
+        return mockMvc.perform(get("/api/courses").param("limit", "100")).andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int addCourse() throws Exception {
+        return mockMvc.perform(post("/api/courses").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Benchmark course added " + sequence.incrementAndGet() + "\",\"description\":\"course description here\"}"))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int updateCourse() throws Exception {
+        return mockMvc.perform(put("/api/courses/" + courseId).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Benchmark course updated " + sequence.incrementAndGet() + "\",\"description\":\"course description here\"}"))
+                .andReturn().getResponse().getStatus();
+    }
+}
@@ -0,0 +1,98 @@
+package com.personal.courseproject.coursesystem.repository;
+
+import com.personal.courseproject.coursesystem.BenchmarkApplication;
+import com.personal.courseproject.coursesystem.Course;
+import com.personal.courseproject.coursesystem.service.CourseManagementService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the JPA repository with the JdbcTemplate read path on the same queries, bypassing the cache. Run
+ * with the gc profiler (the default in build.gradle) and compare gc.alloc.rate.norm for the bytes allocated
+ * per call.
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CourseReadPathBenchmark {
+    @Param({"1000"})
+    private int seededCourses;
+
+    @Param({"100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private CourseRepository courseRepository;
+    private EntityManager entityManager;
+    private CourseJdbcRepository courseJdbcRepository;
+    private Integer courseId;
+    private List<Integer> courseIds;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        courseRepository = context.getBean(CourseRepository.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        courseJdbcRepository = context.getBean(CourseJdbcRepository.class);
+        List<Course> courses = BenchmarkApplication.seed(context.getBean(CourseManagementService.class), seededCourses);
+        courseId = courses.get(seededCourses / 2).getId();
+        courseIds = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            courseIds.add(courses.get(i * seededCourses / pageSize).getId());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Course jpaFindById() {
+        return courseRepository.findById(courseId).orElse(null);
+    }
+
+    @Benchmark
+    public Course jdbcFindById() {
+        return courseJdbcRepository.findById(courseId);
+    }
+
+    @Benchmark
+    public List<Course> jpaFindPage() {
+        // The same JPQL Spring Data derives for findByIdGreaterThanOrderByIdAsc, without adding it to the app.
+        return entityManager.createQuery("SELECT c FROM Course c WHERE c.id > :after ORDER BY c.id", Course.class)
+                .setParameter("after", 0)
+                .setMaxResults(pageSize)
+                .getResultList();
+    }
+
+    @Benchmark
+    public List<Course> jdbcFindPage() {
+        return courseJdbcRepository.findPageAfter(0, pageSize);
+    }
+
+    @Benchmark
+    public Iterable<Course> jpaFindAllById() {
+        return courseRepository.findAllById(courseIds);
+    }
+
+    @Benchmark
+    public List<Course> jdbcFindAllById() {
+        return courseJdbcRepository.findAllById(courseIds);
+    }
+}
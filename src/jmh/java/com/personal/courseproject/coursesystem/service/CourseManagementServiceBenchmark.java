@@ -0,0 +1,70 @@
+package com.personal.courseproject.coursesystem.service;
+
+import com.personal.courseproject.coursesystem.BenchmarkApplication;
+import com.personal.courseproject.coursesystem.Course;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CourseManagementServiceBenchmark {
+    @Param({"1000"})
+    private int seededCourses;
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private CourseManagementService courseManagementService;
+    private Integer courseId;
+    private Course updatedCourse;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        courseManagementService = context.getBean(CourseManagementService.class);
+        List<Course> courses = BenchmarkApplication.seed(courseManagementService, seededCourses);
+        courseId = courses.get(seededCourses / 2).getId();
+        updatedCourse = new Course("Benchmark course updated", "course description here");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Course getCourseById() {
+        return courseManagementService.getCoursesById(courseId);
+    }
+
+    @Benchmark
+    public List<Course> getPageOfCourses() {
+        return courseManagementService.getCourses(null, pageSize);
+    }
+
+    @Benchmark
+    public Course addCourse() {
+        return courseManagementService.addCourses(new Course("Benchmark course added " + sequence.incrementAndGet(), "course description here"));
+    }
+
+    @Benchmark
+    public Course updateCourse() {
+        updatedCourse.setName("Benchmark course updated " + sequence.incrementAndGet());
+        return courseManagementService.updateCourses(courseId, updatedCourse);
+    }
+}
@@ -0,0 +1,24 @@
+CREATE SEQUENCE IF NOT EXISTS COURSE_ID_SEQ INCREMENT BY 50;
+CREATE TABLE IF NOT EXISTS COURSE(
+ID BIGINT DEFAULT nextval('COURSE_ID_SEQ'),
+NAME VARCHAR(300) NOT NULL,
+DESCRIPTION VARCHAR(500) NOT NULL,
+CREATED_AT TIMESTAMP,
+UPDATED_AT TIMESTAMP,
+VERSION INTEGER NOT NULL DEFAULT 0,
+PRIMARY KEY(ID)
+);
+CREATE UNIQUE INDEX IF NOT EXISTS COURSE_NAME_UNIQUE_IDX ON COURSE(NAME);
+CREATE INDEX IF NOT EXISTS COURSE_SEARCH_IDX ON COURSE USING GIN (to_tsvector('english', COALESCE(NAME, '') || ' ' || COALESCE(DESCRIPTION, '')));
+CREATE TABLE IF NOT EXISTS COURSE_CHANGE(
+SEQ BIGSERIAL,
+COURSE_ID BIGINT NOT NULL,
+OPERATION VARCHAR(10) NOT NULL,
+NAME VARCHAR(300) NOT NULL,
+DESCRIPTION VARCHAR(500) NOT NULL,
+CREATED_AT TIMESTAMP,
+UPDATED_AT TIMESTAMP,
+VERSION INTEGER NOT NULL,
+CHANGED_AT TIMESTAMP NOT NULL,
+PRIMARY KEY(SEQ)
+);
@@ -0,0 +1,152 @@
+package com.personal.courseproject.coursesystem.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load generator for a running instance: keeps {@code concurrency} requests in flight until
+ * {@code requests} have completed, then prints throughput, latency percentiles and the peak number of requests
+ * the server held open at once, and writes the same numbers as JSON so runs can be compared.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        Map<String, Object> summary = run(options);
+        System.out.println(toJson(summary));
+        String output = options.get("output");
+        if (output != null) {
+            write(Paths.get(output), String.valueOf(summary.get("label")), summary);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Runs one scenario described by the same options the command line accepts and returns its summary.
+     */
+    public static Map<String, Object> run(Map<String, String> options) throws InterruptedException {
+        String baseUrl = options.getOrDefault("baseUrl", "http://localhost:8080");
+        String path = options.getOrDefault("path", "/api/courses?limit=100");
+        String method = options.getOrDefault("method", "GET");
+        String body = options.getOrDefault("body", "");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "20000"));
+        String label = options.getOrDefault("label", "run");
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        HttpClient client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .method(method, body.isEmpty() ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        long[] latencies = new long[requests];
+        AtomicInteger recorded = new AtomicInteger();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            permits.acquire();
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                latencies[recorded.getAndIncrement()] = System.nanoTime() - sent;
+                String outcome = error != null ? error.getClass().getSimpleName() : String.valueOf(response.statusCode());
+                outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+                inFlight.decrementAndGet();
+                permits.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        Map<String, Object> summary = new TreeMap<>();
+        summary.put("label", label);
+        summary.put("target", method + " " + baseUrl + path);
+        summary.put("concurrency", concurrency);
+        summary.put("requests", requests);
+        summary.put("peakInFlight", peakInFlight.get());
+        summary.put("throughputPerSecond", Math.round(requests / elapsedSeconds));
+        summary.put("p50Millis", percentile(latencies, 0.50));
+        summary.put("p95Millis", percentile(latencies, 0.95));
+        summary.put("p99Millis", percentile(latencies, 0.99));
+        summary.put("maxMillis", latencies[latencies.length - 1] / 1e6);
+        Map<String, Long> outcomeCounts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> outcomeCounts.put(outcome, count.sum()));
+        summary.put("outcomes", outcomeCounts);
+        return summary;
+    }
+
+    static void write(Path directory, String name, Map<String, ?> values) throws IOException {
+        Path file = directory.resolve(name + ".json");
+        Files.createDirectories(directory);
+        Files.writeString(file, toJson(values) + System.lineSeparator());
+        System.out.println("Wrote " + file);
+    }
+
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / 1e6;
+    }
+
+    static Map<String, String> parse(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IOException("Expected --name=value but got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    static String toJson(Map<String, ?> values) {
+        StringBuilder json = new StringBuilder("{");
+        values.forEach((key, value) -> {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"').append(key).append("\":");
+            if (value instanceof Map) {
+                @SuppressWarnings("unchecked")
+                Map<String, ?> nested = (Map<String, ?>) value;
+                json.append(toJson(nested));
+            } else if (value instanceof String) {
+                json.append('"').append(((String) value).replace("\"", "\\\"")).append('"');
+            } else {
+                json.append(value);
+            }
+        });
+        return json.append('}').toString();
+    }
+}
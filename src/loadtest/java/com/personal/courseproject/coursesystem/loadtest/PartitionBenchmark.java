@@ -0,0 +1,172 @@
+package com.personal.courseproject.coursesystem.loadtest;
+
+import com.personal.courseproject.coursesystem.Course;
+import com.personal.courseproject.coursesystem.datasource.RecentWrites;
+import com.personal.courseproject.coursesystem.repository.CourseIdSequence;
+import com.personal.courseproject.coursesystem.repository.CourseJdbcRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seeds an embedded PostgreSQL with synthetic courses on the unpartitioned schema of V1.8, measures lookups by id,
+ * created-date range pages and VACUUM, migrates to the partitioned schema of V1.9 and measures the same again.
+ * Before the second round it checks that the migration kept every course and that paging a created-date range
+ * returns the same courses as one ordered query, ties on the creation time included.
+ */
+public class PartitionBenchmark {
+    private static final String UNPARTITIONED_VERSION = "1.8";
+    private static final LocalDateTime FIRST_CREATED = LocalDateTime.of(2017, 1, 1, 0, 0);
+    private static final LocalDateTime LAST_CREATED = LocalDateTime.of(2022, 1, 1, 0, 0);
+    private static final int PAGE_SIZE = 100;
+    private static final int PARTITIONS = 16;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTest.parse(args);
+        int rows = Integer.parseInt(options.getOrDefault("rows", "1000000"));
+        int lookups = Integer.parseInt(options.getOrDefault("lookups", "20000"));
+        int pages = Integer.parseInt(options.getOrDefault("pages", "2000"));
+        Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setServerConfig("max_wal_size", "4GB")
+                .setServerConfig("maintenance_work_mem", "256MB")
+                .start()) {
+            SingleConnectionDataSource dataSource =
+                    new SingleConnectionDataSource(postgres.getJdbcUrl("postgres", "postgres"), "postgres", "", true);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            CourseJdbcRepository courseJdbcRepository = new CourseJdbcRepository(jdbcTemplate,
+                    new CourseIdSequence(jdbcTemplate), new RecentWrites(Duration.ZERO), 500, 100);
+
+            Flyway.configure().dataSource(dataSource).target(UNPARTITIONED_VERSION).load().migrate();
+            long started = System.nanoTime();
+            seed(jdbcTemplate, rows);
+            System.out.printf("Seeded %d courses in %d ms%n", rows, millisSince(started));
+
+            result(results, "findById", "unpartitioned", time(() -> {
+                for (int i = 0; i < lookups; i++) {
+                    jdbcTemplate.queryForList("SELECT * FROM course WHERE ID = ?", idOf(i, rows));
+                }
+            }));
+            // V1.8 has no index for the range, so it gets the one V1.9 adds to every partition.
+            jdbcTemplate.execute("CREATE INDEX course_created_at_benchmark ON course (CREATED_AT, ID)");
+            result(results, "createdRangePages", "unpartitioned", time(() -> {
+                for (int i = 0; i < pages; i++) {
+                    jdbcTemplate.queryForList("SELECT * FROM course WHERE (CREATED_AT, ID) > (?, 0) AND CREATED_AT < ?"
+                                    + " ORDER BY CREATED_AT, ID LIMIT " + PAGE_SIZE,
+                            Timestamp.valueOf(FIRST_CREATED.plusDays(i % 1500)), Timestamp.valueOf(LAST_CREATED));
+                }
+            }));
+            jdbcTemplate.execute("DROP INDEX course_created_at_benchmark");
+            touchTenPercent(jdbcTemplate);
+            result(results, "vacuumAfterTouchingTenPercent", "unpartitioned", time(() -> jdbcTemplate.execute("VACUUM course")));
+
+            result(results, "migration", "partitioned", time(() -> Flyway.configure().dataSource(dataSource).load().migrate()));
+            jdbcTemplate.execute("ANALYZE");
+            check("migration kept every course", jdbcTemplate.queryForObject("SELECT COUNT(*) FROM course", Long.class) == rows
+                    && jdbcTemplate.queryForObject("SELECT COUNT(*) FROM course_name", Long.class) == rows);
+            check("created range pages match one ordered query", pagesMatch(jdbcTemplate, courseJdbcRepository));
+
+            result(results, "findById", "partitioned", time(() -> {
+                for (int i = 0; i < lookups; i++) {
+                    courseJdbcRepository.findById(idOf(i, rows));
+                }
+            }));
+            result(results, "createdRangePages", "partitioned", time(() -> {
+                for (int i = 0; i < pages; i++) {
+                    courseJdbcRepository.findCreatedBetween(FIRST_CREATED.plusDays(i % 1500), LAST_CREATED, 0, PAGE_SIZE);
+                }
+            }));
+            touchTenPercent(jdbcTemplate);
+            result(results, "vacuumAfterTouchingTenPercent", "onePartition",
+                    time(() -> jdbcTemplate.execute("VACUUM course_p" + (PARTITIONS - 1))));
+            result(results, "vacuumAfterTouchingTenPercent", "allPartitions", time(() -> jdbcTemplate.execute("VACUUM course")));
+            dataSource.destroy();
+        }
+
+        results.forEach((measurement, times) -> System.out.printf("%-30s %s%n", measurement, times));
+        String output = options.get("output");
+        if (output != null) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("rows", rows);
+            summary.put("lookups", lookups);
+            summary.put("pages", pages);
+            summary.put("millis", results);
+            LoadTest.write(Paths.get(output), "partition-benchmark", summary);
+        }
+        System.exit(0);
+    }
+
+    // Creation times 150 seconds apart spread the courses evenly over the five years of FIRST_CREATED to LAST_CREATED.
+    private static void seed(JdbcTemplate jdbcTemplate, int rows) {
+        jdbcTemplate.update("INSERT INTO course (ID, NAME, DESCRIPTION, CREATED_AT, UPDATED_AT, VERSION)"
+                + " SELECT i, 'Course ' || i, 'Description of course ' || i, CAST(? AS TIMESTAMP) + i * interval '150 seconds', NULL, 0"
+                + " FROM generate_series(1, ?) i", Timestamp.valueOf(FIRST_CREATED), rows);
+        jdbcTemplate.queryForObject("SELECT setval('course_id_seq', ?, false)", Long.class, rows + 1L);
+        jdbcTemplate.execute("VACUUM ANALYZE course");
+    }
+
+    private static boolean pagesMatch(JdbcTemplate jdbcTemplate, CourseJdbcRepository courseJdbcRepository) {
+        LocalDateTime from = FIRST_CREATED.plusDays(1);
+        LocalDateTime to = from.plusDays(1);
+        // Ties on the creation time, as after a bulk import, must neither repeat nor skip courses between pages.
+        jdbcTemplate.update("UPDATE course SET CREATED_AT = ? WHERE ID IN (SELECT ID FROM course"
+                + " WHERE CREATED_AT >= ? AND CREATED_AT < ? ORDER BY ID LIMIT ?)",
+                Timestamp.valueOf(from.plusHours(12)), Timestamp.valueOf(from), Timestamp.valueOf(to), PAGE_SIZE * 3);
+        List<Integer> paged = new ArrayList<>();
+        LocalDateTime cursor = from;
+        int afterId = 0;
+        List<Course> page;
+        do {
+            page = courseJdbcRepository.findCreatedBetween(cursor, to, afterId, PAGE_SIZE);
+            page.forEach(course -> paged.add(course.getId()));
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1).getCreatedAt();
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+        List<Integer> ordered = jdbcTemplate.queryForList("SELECT ID FROM course WHERE CREATED_AT >= ? AND CREATED_AT < ?"
+                + " ORDER BY CREATED_AT, ID", Integer.class, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        return !ordered.isEmpty() && paged.equals(ordered);
+    }
+
+    private static void touchTenPercent(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("UPDATE course SET UPDATED_AT = LOCALTIMESTAMP WHERE ID % 10 = 0");
+    }
+
+    // Steps through the ids with a prime stride, so consecutive lookups hit different pages and partitions.
+    private static int idOf(int lookup, int rows) {
+        return 1 + (int) ((lookup * 7919L) % rows);
+    }
+
+    private static long time(Runnable measured) {
+        long started = System.nanoTime();
+        measured.run();
+        return millisSince(started);
+    }
+
+    private static long millisSince(long started) {
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    private static void result(Map<String, Map<String, Object>> results, String measurement, String schema, long millis) {
+        results.computeIfAbsent(measurement, key -> new LinkedHashMap<>()).put(schema, millis);
+    }
+
+    private static void check(String rule, boolean passed) {
+        System.out.printf("%-50s %s%n", rule, passed ? "ok" : "FAILED");
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.personal.courseproject.coursesystem.loadtest;
+
+import com.personal.courseproject.coursesystem.CourseSystemApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the application twice on fresh embedded PostgreSQL databases, once with the default settings and once
+ * with the {@code production} profile, drives both with the same scenarios and reports the throughput change.
+ */
+public class ProfileComparison {
+    private static final String[] PROFILES = {"default", "production"};
+    private static final String[][] SCENARIOS = {
+            {"page", "GET", "/api/courses?after=0&limit=100", ""},
+            {"search", "GET", "/api/courses/search?q=number%2042&limit=20", ""},
+            {"update", "PUT", "/api/courses/1", "{\"name\":\"Load test course\"}"},
+    };
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTest.parse(args);
+        int courses = Integer.parseInt(options.getOrDefault("courses", "5000"));
+        Map<String, Map<String, Object>> results = new LinkedHashMap<>();
+        for (String[] scenario : SCENARIOS) {
+            results.put(scenario[0], new LinkedHashMap<>());
+        }
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            JdbcTemplate admin = new JdbcTemplate(postgres.getPostgresDatabase());
+            for (String profile : PROFILES) {
+                String database = "profile_" + profile;
+                admin.execute("CREATE DATABASE " + database);
+                Flyway.configure().dataSource(postgres.getDatabase("postgres", database)).load().migrate();
+                try (ConfigurableApplicationContext context = start(postgres.getJdbcUrl("postgres", database), profile)) {
+                    String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+                    seed(baseUrl, courses);
+                    for (String[] scenario : SCENARIOS) {
+                        Map<String, String> scenarioOptions = new HashMap<>(options);
+                        scenarioOptions.put("baseUrl", baseUrl);
+                        scenarioOptions.put("method", scenario[1]);
+                        scenarioOptions.put("path", scenario[2]);
+                        scenarioOptions.put("body", scenario[3]);
+                        scenarioOptions.put("label", profile + "-" + scenario[0]);
+                        warmUp(scenarioOptions);
+                        results.get(scenario[0]).put(profile, LoadTest.run(scenarioOptions));
+                    }
+                }
+            }
+        }
+
+        for (Map.Entry<String, Map<String, Object>> result : results.entrySet()) {
+            double before = throughput(result.getValue().get(PROFILES[0]));
+            double after = throughput(result.getValue().get(PROFILES[1]));
+            String change = String.format("%+.1f%%", (after - before) / before * 100);
+            result.getValue().put("throughputChange", change);
+            System.out.printf("%-8s default %8.0f/s  production %8.0f/s  %s%n", result.getKey(), before, after, change);
+        }
+        String output = options.get("output");
+        if (output != null) {
+            LoadTest.write(Paths.get(output), "profile-comparison", results);
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext start(String jdbcUrl, String profile) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--spring.main.banner-mode=off",
+                "--course.throttle.enabled=false",
+                "--logging.level.root=warn"));
+        if (!"default".equals(profile)) {
+            args.add("--spring.profiles.active=" + profile);
+        }
+        return new SpringApplicationBuilder(CourseSystemApplication.class).run(args.toArray(new String[0]));
+    }
+
+    private static void seed(String baseUrl, int courses) throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < courses; i++) {
+            body.append("{\"name\":\"Seeded course ").append(i)
+                    .append("\",\"description\":\"Seeded course number ").append(i).append(" for the load test\"}\n");
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/courses/bulk"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding failed with " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private static void warmUp(Map<String, String> options) throws InterruptedException {
+        Map<String, String> warmUpOptions = new HashMap<>(options);
+        int requests = Integer.parseInt(options.getOrDefault("requests", "20000"));
+        warmUpOptions.put("requests", String.valueOf(Math.max(1, requests / 5)));
+        LoadTest.run(warmUpOptions);
+    }
+
+    private static double throughput(Object summary) {
+        return ((Number) ((Map<?, ?>) summary).get("throughputPerSecond")).doubleValue();
+    }
+}
@@ -0,0 +1,100 @@
+package com.personal.courseproject.coursesystem.loadtest;
+
+import com.personal.courseproject.coursesystem.CourseSystemApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Boots the application on three embedded PostgreSQL servers, one primary and two stand-ins for its replicas,
+ * and walks through the routing rules. The stand-ins are migrated but never replicated to, so a page read shows
+ * where it was served: a course created through the API is only listed when the read went to the primary. Only
+ * reads of the written course itself follow it to the primary; pages keep going to the replicas.
+ */
+public class ReplicaRoutingCheck {
+    private static final String PAGE = "/api/courses?after=0&limit=10";
+    private static final Pattern CREATED_ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final long MAX_LAG_MILLIS = 1000;
+    private static final long HEALTH_CHECK_MILLIS = 200;
+
+    public static void main(String[] args) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        try (EmbeddedPostgres primary = start()) {
+            EmbeddedPostgres firstReplica = start();
+            EmbeddedPostgres secondReplica = start();
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CourseSystemApplication.class).run(
+                    "--server.port=0",
+                    "--spring.datasource.url=" + primary.getJdbcUrl("postgres", "postgres"),
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=",
+                    "--spring.main.banner-mode=off",
+                    "--course.throttle.enabled=false",
+                    "--course.datasource.replicas.urls=" + firstReplica.getJdbcUrl("postgres", "postgres")
+                            + "," + secondReplica.getJdbcUrl("postgres", "postgres"),
+                    "--course.datasource.replicas.max-lag=" + MAX_LAG_MILLIS + "ms",
+                    "--course.datasource.replicas.health-check-interval=" + HEALTH_CHECK_MILLIS + "ms",
+                    "--logging.level.root=warn")) {
+                String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+                Thread.sleep(HEALTH_CHECK_MILLIS * 2);
+
+                String created = send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/courses"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Replica routing\",\"description\":\"Written to the primary\"}")));
+                Matcher id = CREATED_ID.matcher(created);
+                check("the written course is read right after the write", id.find()
+                        && send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/courses/" + id.group(1))).GET())
+                        .contains("Replica routing"), true);
+                check("pages right after a write still go to the replicas", listsCourse(client, baseUrl) || listsCourse(client, baseUrl), false);
+
+                Thread.sleep(MAX_LAG_MILLIS * 2);
+                check("later reads go to the replicas", listsCourse(client, baseUrl) || listsCourse(client, baseUrl), false);
+
+                firstReplica.close();
+                Thread.sleep(HEALTH_CHECK_MILLIS * 5);
+                check("reads skip a replica that is down", listsCourse(client, baseUrl) || listsCourse(client, baseUrl), false);
+
+                secondReplica.close();
+                Thread.sleep(HEALTH_CHECK_MILLIS * 5);
+                check("reads fall back to the primary without replicas", listsCourse(client, baseUrl), true);
+
+                System.out.println(send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/course.datasource.reads")).GET()));
+            }
+        }
+        System.exit(0);
+    }
+
+    private static EmbeddedPostgres start() throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.start();
+        Flyway.configure().dataSource(postgres.getPostgresDatabase()).load().migrate();
+        return postgres;
+    }
+
+    private static boolean listsCourse(HttpClient client, String baseUrl) throws IOException, InterruptedException {
+        return send(client, HttpRequest.newBuilder(URI.create(baseUrl + PAGE)).GET()).contains("Replica routing");
+    }
+
+    private static String send(HttpClient client, HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static void check(String rule, boolean actual, boolean expected) {
+        System.out.printf("%-50s %s%n", rule, actual == expected ? "ok" : "FAILED");
+        if (actual != expected) {
+            System.exit(1);
+        }
+    }
+}
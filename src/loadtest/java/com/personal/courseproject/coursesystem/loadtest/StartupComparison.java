@@ -0,0 +1,121 @@
+package com.personal.courseproject.coursesystem.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the application in a fresh JVM several times per variant against one embedded PostgreSQL database and
+ * measures the time from launching the JVM until the first course request is answered, which is what a pod
+ * added by the autoscaler costs before it takes traffic. The variants are the default settings, the
+ * {@code fast-start} profile, and {@code fast-start} on the AppCDS archive when one is given.
+ */
+public class StartupComparison {
+    private static final String MAIN_CLASS = "com.personal.courseproject.coursesystem.CourseSystemApplication";
+    private static final String FIRST_REQUEST = "/api/courses?after=0&limit=1";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTest.parse(args);
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        String classpath = options.getOrDefault("classpath", System.getProperty("java.class.path"));
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+
+        Map<String, List<String>> variants = new LinkedHashMap<>();
+        variants.put("default", List.of(java, "-cp", classpath, MAIN_CLASS));
+        variants.put("fast-start", List.of(java, "-cp", classpath, MAIN_CLASS, "--spring.profiles.active=fast-start"));
+        String cdsArchive = options.get("cdsArchive");
+        if (cdsArchive != null && Files.exists(Paths.get(cdsArchive))) {
+            variants.put("fast-start-cds", List.of(java, "-XX:SharedArchiveFile=" + cdsArchive, "-Xshare:auto",
+                    "-cp", options.get("cdsClasspath"), MAIN_CLASS, "--spring.profiles.active=fast-start"));
+        }
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            Flyway.configure().dataSource(postgres.getPostgresDatabase()).load().migrate();
+            String jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+            for (Map.Entry<String, List<String>> variant : variants.entrySet()) {
+                List<Long> millis = new ArrayList<>();
+                for (int i = 0; i < runs; i++) {
+                    millis.add(timeToFirstRequest(variant.getValue(), jdbcUrl));
+                }
+                Collections.sort(millis);
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("runs", runs);
+                summary.put("medianMillis", millis.get(millis.size() / 2));
+                summary.put("minMillis", millis.get(0));
+                summary.put("maxMillis", millis.get(millis.size() - 1));
+                results.put(variant.getKey(), summary);
+                System.out.printf("%-16s median %6d ms  min %6d ms  max %6d ms%n", variant.getKey(),
+                        millis.get(millis.size() / 2), millis.get(0), millis.get(millis.size() - 1));
+            }
+        }
+        String output = options.get("output");
+        if (output != null) {
+            LoadTest.write(Paths.get(output), "startup-comparison", results);
+        }
+        System.exit(0);
+    }
+
+    private static long timeToFirstRequest(List<String> variant, String jdbcUrl) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>(variant);
+        command.addAll(List.of(
+                "--server.port=" + port,
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=",
+                "--spring.main.banner-mode=off",
+                "--course.throttle.enabled=false",
+                "--logging.level.root=warn"));
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + FIRST_REQUEST)).GET().build();
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (true) {
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                    }
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                if (!process.isAlive() || System.nanoTime() - started > STARTUP_TIMEOUT.toNanos()) {
+                    throw new IllegalStateException("Application did not serve " + FIRST_REQUEST + ": " + command);
+                }
+                Thread.sleep(10);
+            }
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
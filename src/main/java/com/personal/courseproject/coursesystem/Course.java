@@ -2,6 +2,7 @@ package com.personal.courseproject.coursesystem;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -9,9 +10,11 @@ import java.util.Objects;
 
 @Entity
 @Table(name = "course")
+@JsonPropertyOrder({"id", "name", "description", "createdAt", "updatedAt", "version"})
 public class Course {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "course_id_seq")
+    @SequenceGenerator(name = "course_id_seq", sequenceName = "course_id_seq", allocationSize = 50)
     @JsonProperty
     @Column(name = "ID")
     private Integer id;
@@ -34,12 +37,22 @@ public class Course {
     @Column(name = "UPDATED_AT")
     private LocalDateTime updatedAt;
 
+    @Version
+    @JsonProperty
+    @Column(name = "VERSION")
+    private Integer version;
+
     public Course(Integer id, String name, String description, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, name, description, createdAt, updatedAt, null);
+    }
+
+    public Course(Integer id, String name, String description, LocalDateTime createdAt, LocalDateTime updatedAt, Integer version) {
         this.id = id;
         this.name = name;
         this.description = description;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
+        this.version = version;
     }
 
     public Course(String name, String description) {
@@ -87,17 +100,25 @@ public class Course {
         this.updatedAt = updatedAt;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Course)) return false;
         Course course = (Course) o;
-        return Objects.equals(id, course.id) && Objects.equals(name, course.name) && Objects.equals(description, course.description) && Objects.equals(createdAt, course.createdAt) && Objects.equals(updatedAt, course.updatedAt);
+        return Objects.equals(id, course.id) && Objects.equals(name, course.name) && Objects.equals(description, course.description) && Objects.equals(createdAt, course.createdAt) && Objects.equals(updatedAt, course.updatedAt) && Objects.equals(version, course.version);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, description, createdAt, updatedAt);
+        return Objects.hash(id, name, description, createdAt, updatedAt, version);
     }
 
     @Override
@@ -108,6 +129,7 @@ public class Course {
                 ", description='" + description + '\'' +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,80 @@
+package com.personal.courseproject.coursesystem;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * One entry of the course change log. {@code course} holds the row as it was after the change, or as it was
+ * removed for {@link Operation#DELETED}.
+ */
+public class CourseChange {
+    public enum Operation {
+        CREATED, UPDATED, DELETED
+    }
+
+    @JsonProperty
+    private long seq;
+
+    @JsonProperty
+    private Operation operation;
+
+    @JsonProperty
+    private Course course;
+
+    @JsonProperty
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime changedAt;
+
+    public CourseChange(long seq, Operation operation, Course course, LocalDateTime changedAt) {
+        this.seq = seq;
+        this.operation = operation;
+        this.course = course;
+        this.changedAt = changedAt;
+    }
+
+    public CourseChange() {
+
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public Course getCourse() {
+        return course;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CourseChange)) return false;
+        CourseChange that = (CourseChange) o;
+        return seq == that.seq && operation == that.operation && Objects.equals(course, that.course) && Objects.equals(changedAt, that.changedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(seq, operation, course, changedAt);
+    }
+
+    @Override
+    public String toString() {
+        return "CourseChange{" +
+                "seq=" + seq +
+                ", operation=" + operation +
+                ", course=" + course +
+                ", changedAt=" + changedAt +
+                '}';
+    }
+}
@@ -0,0 +1,88 @@
+package com.personal.courseproject.coursesystem;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The encodings the course API answers with. JSON stays the default; service-to-service callers can ask for CBOR
+ * or Smile, which write timestamps as epoch milliseconds instead of formatted strings. Smile also writes each
+ * property name once per response and refers back to it, so it is the smallest for lists.
+ */
+public enum CourseFormat {
+    JSON(MediaType.APPLICATION_JSON, Jackson2ObjectMapperBuilder::json),
+    CBOR(MediaType.APPLICATION_CBOR, Jackson2ObjectMapperBuilder::cbor),
+    SMILE(new MediaType("application", "x-jackson-smile"), Jackson2ObjectMapperBuilder::smile);
+
+    private final MediaType mediaType;
+    private final Supplier<Jackson2ObjectMapperBuilder> builder;
+
+    CourseFormat(MediaType mediaType, Supplier<Jackson2ObjectMapperBuilder> builder) {
+        this.mediaType = mediaType;
+        this.builder = builder;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public boolean isBinary() {
+        return this != JSON;
+    }
+
+    /**
+     * Builds the mapper for a binary format. JSON responses keep using the application's {@link ObjectMapper}.
+     */
+    public ObjectMapper createBinaryMapper() {
+        if (!isBinary()) {
+            throw new IllegalStateException(this + " is not a binary format");
+        }
+        SimpleModule epochMillis = new SimpleModule("EpochMillis");
+        epochMillis.addSerializer(LocalDateTime.class, new JsonSerializer<>() {
+            @Override
+            public void serialize(LocalDateTime value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+                generator.writeNumber(value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+        });
+        epochMillis.addDeserializer(LocalDateTime.class, new JsonDeserializer<>() {
+            @Override
+            public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getLongValue()), ZoneId.systemDefault());
+            }
+        });
+        return builder.get().modulesToInstall(epochMillis).build();
+    }
+
+    /**
+     * Picks the format the {@code Accept} header prefers, falling back to JSON when it names none of them.
+     */
+    public static CourseFormat negotiate(String accept) {
+        if (accept == null) {
+            return JSON;
+        }
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            for (CourseFormat format : values()) {
+                if (mediaType.includes(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,127 @@
+package com.personal.courseproject.coursesystem.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.personal.courseproject.coursesystem.Course;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+@Component
+public class CourseCache implements MeterBinder {
+    private final Cache<Integer, Course> coursesById;
+    private final Cache<String, Course> coursesByName;
+    private final SingleFlight<Integer, Course> courseLoads;
+
+    @Autowired
+    public CourseCache(@Value("${course.cache.maximum-size:10000}") long maximumSize,
+                       @Value("${course.cache.expire-after-write:PT5M}") Duration expireAfterWrite,
+                       @Value("${course.cache.load-timeout:PT2S}") Duration loadTimeout) {
+        this.coursesById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.coursesByName = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.courseLoads = new SingleFlight<>("courses.byId", loadTimeout);
+    }
+
+    /**
+     * Returns the cached course or loads it, sharing one load between concurrent misses of the same id. A load
+     * that overlaps {@link #evict} is returned to its callers but not cached. Only loads fill the by-name index, so
+     * a hit racing a rename cannot put the old name back.
+     */
+    public Course getById(Integer id, Function<Integer, Course> loader) {
+        Course course = coursesById.getIfPresent(id);
+        if (course != null) {
+            return course;
+        }
+        return courseLoads.load(id, loader, (key, loadedCourse) -> {
+            if (loadedCourse != null) {
+                put(loadedCourse);
+            }
+        });
+    }
+
+    /**
+     * Returns the cached courses for {@code ids} and loads all misses with a single call to {@code loader}. Ids the
+     * loader does not return are left out of the result and are not cached, and like in {@link #getById} a course
+     * evicted while it was loaded is returned but not cached.
+     */
+    public Map<Integer, Course> getAllById(Iterable<Integer> ids,
+                                           Function<Iterable<? extends Integer>, Map<Integer, Course>> loader) {
+        Map<Integer, Course> courses = new LinkedHashMap<>();
+        Set<Integer> missingIds = new LinkedHashSet<>();
+        for (Integer id : ids) {
+            Course course = coursesById.getIfPresent(id);
+            if (course != null) {
+                courses.put(id, course);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            courseLoads.loadAll(missingIds, loader, (id, loadedCourse) -> {
+                if (loadedCourse != null) {
+                    put(loadedCourse);
+                }
+            }).forEach((id, course) -> {
+                if (course != null && missingIds.contains(id)) {
+                    courses.put(id, course);
+                }
+            });
+        }
+        return courses;
+    }
+
+    public Course getIfPresent(String name) {
+        return coursesByName.getIfPresent(name);
+    }
+
+    public Course put(Course course) {
+        coursesById.put(course.getId(), course);
+        coursesByName.put(course.getName(), course);
+        return course;
+    }
+
+    public void evict(Course course) {
+        courseLoads.forget(course.getId());
+        coursesById.invalidate(course.getId());
+        coursesByName.invalidate(course.getName());
+    }
+
+    /**
+     * Drops every cached course, for when invalidations from other instances may have been missed.
+     */
+    public void evictAll() {
+        courseLoads.forgetAll();
+        coursesById.invalidateAll();
+        coursesByName.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        CaffeineCacheMetrics.monitor(meterRegistry, coursesById, "courses.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, coursesByName, "courses.byName");
+        courseLoads.bindTo(meterRegistry);
+    }
+
+    public CourseCacheStats stats() {
+        return new CourseCacheStats(coursesById.stats(), coursesById.estimatedSize(),
+                coursesByName.stats(), coursesByName.estimatedSize());
+    }
+}
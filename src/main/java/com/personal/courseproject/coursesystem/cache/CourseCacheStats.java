@@ -0,0 +1,37 @@
+package com.personal.courseproject.coursesystem.cache;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class CourseCacheStats {
+    @JsonProperty
+    private final Map<String, Long> byId;
+
+    @JsonProperty
+    private final Map<String, Long> byName;
+
+    public CourseCacheStats(CacheStats byIdStats, long byIdSize, CacheStats byNameStats, long byNameSize) {
+        this.byId = toMap(byIdStats, byIdSize);
+        this.byName = toMap(byNameStats, byNameSize);
+    }
+
+    public Map<String, Long> getById() {
+        return byId;
+    }
+
+    public Map<String, Long> getByName() {
+        return byName;
+    }
+
+    private static Map<String, Long> toMap(CacheStats stats, long size) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        values.put("hits", stats.hitCount());
+        values.put("misses", stats.missCount());
+        values.put("evictions", stats.evictionCount());
+        values.put("size", size);
+        return values;
+    }
+}
@@ -0,0 +1,100 @@
+package com.personal.courseproject.coursesystem.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.personal.courseproject.coursesystem.Course;
+import com.personal.courseproject.coursesystem.CourseFormat;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps serialized JSON next to the cached courses, and CBOR or Smile once a client has asked for them. The list
+ * snapshot of each format is rebuilt at most once per catalog version, concurrent requests for the same version
+ * sharing one rebuild; the body of a single course is keyed weakly by the cached instance, so it is dropped
+ * together with that instance when {@link CourseCache} evicts or replaces it.
+ */
+@Component
+public class CourseJsonCache implements MeterBinder {
+    private final Map<CourseFormat, ObjectWriter> courseListWriters = new EnumMap<>(CourseFormat.class);
+    private final Map<CourseFormat, ObjectWriter> courseWriters = new EnumMap<>(CourseFormat.class);
+    private final Map<CourseFormat, AtomicReference<CourseListSnapshot>> courseLists = new EnumMap<>(CourseFormat.class);
+    private final Map<CourseFormat, Cache<Course, byte[]>> courses = new EnumMap<>(CourseFormat.class);
+    private final SingleFlight<String, CourseListSnapshot> courseListLoads;
+
+    @Autowired
+    public CourseJsonCache(ObjectMapper objectMapper,
+                           @Value("${course.cache.list-load-timeout:PT30S}") Duration listLoadTimeout) {
+        for (CourseFormat format : CourseFormat.values()) {
+            ObjectMapper mapper = format.isBinary() ? format.createBinaryMapper() : objectMapper;
+            courseListWriters.put(format, mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Course.class)));
+            courseWriters.put(format, mapper.writerFor(Course.class));
+            courseLists.put(format, new AtomicReference<>());
+            courses.put(format, Caffeine.newBuilder().weakKeys().build());
+        }
+        this.courseListLoads = new SingleFlight<>("courses.list", listLoadTimeout);
+    }
+
+    public CourseListSnapshot getList(String version, CourseFormat format, Supplier<List<Course>> loader) {
+        AtomicReference<CourseListSnapshot> courseList = courseLists.get(format);
+        CourseListSnapshot snapshot = courseList.get();
+        if (snapshot != null && snapshot.getVersion().equals(version)) {
+            return snapshot;
+        }
+        return courseListLoads.load(format + "/" + version, key -> {
+            CourseListSnapshot published = courseList.get();
+            if (published != null && published.getVersion().equals(version)) {
+                return published;
+            }
+            byte[] body = write(courseListWriters.get(format), loader.get());
+            return new CourseListSnapshot(version, body, gzip(body));
+        }, (key, loadedSnapshot) -> courseList.set(loadedSnapshot));
+    }
+
+    public byte[] getCourse(Course course, CourseFormat format) {
+        return courses.get(format).get(course, key -> write(courseWriters.get(format), key));
+    }
+
+    public void evictList() {
+        courseLists.values().forEach(courseList -> courseList.set(null));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        courseListLoads.bindTo(meterRegistry);
+    }
+
+    private static byte[] write(ObjectWriter writer, Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return gzipped.toByteArray();
+    }
+}
@@ -0,0 +1,29 @@
+package com.personal.courseproject.coursesystem.cache;
+
+/**
+ * The full course list as it was at one catalog version, already serialized in one format and gzipped so it can be
+ * written to any number of responses without touching Jackson or the database.
+ */
+public class CourseListSnapshot {
+    private final String version;
+    private final byte[] body;
+    private final byte[] gzippedBody;
+
+    public CourseListSnapshot(String version, byte[] body, byte[] gzippedBody) {
+        this.version = version;
+        this.body = body;
+        this.gzippedBody = gzippedBody;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public byte[] getGzippedBody() {
+        return gzippedBody;
+    }
+}
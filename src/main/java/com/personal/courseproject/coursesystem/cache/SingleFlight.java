@@ -0,0 +1,150 @@
+package com.personal.courseproject.coursesystem.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Lets concurrent callers asking for the same key share one load. The first caller runs the loader and the
+ * others wait for its result, but for at most {@code timeout}: after that they stop waiting and load for
+ * themselves, and the slow load is detached so that later callers start a fresh one.
+ * <p>
+ * The loader's result is handed to the publisher only if the load was not {@link #forget forgotten} while it
+ * ran. Forgetting and publishing exclude each other, so a writer that forgets the key before invalidating its
+ * cache can never have a value read before the write published after it.
+ */
+final class SingleFlight<K, V> implements MeterBinder {
+    private final String name;
+    private final long timeoutNanos;
+    private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+    private final LongAdder led = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    SingleFlight(String name, Duration timeout) {
+        this.name = name;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    V load(K key, Function<? super K, ? extends V> loader, BiConsumer<? super K, ? super V> publisher) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            return await(key, running, loader);
+        }
+        led.increment();
+        try {
+            V value = loader.apply(key);
+            flights.computeIfPresent(key, (k, current) -> {
+                if (current != flight) {
+                    return current;
+                }
+                publisher.accept(k, value);
+                return null;
+            });
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flights.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Loads {@code keys} with one call to {@code loader} and publishes the value of each key that was not forgotten
+     * while it ran. Keys another caller is already loading are loaded again but left to that caller to publish.
+     */
+    Map<K, V> loadAll(Collection<K> keys, Function<? super Collection<K>, ? extends Map<K, V>> loader,
+                      BiConsumer<? super K, ? super V> publisher) {
+        Map<K, CompletableFuture<V>> ledFlights = new HashMap<>();
+        for (K key : keys) {
+            CompletableFuture<V> flight = new CompletableFuture<>();
+            if (flights.putIfAbsent(key, flight) == null) {
+                ledFlights.put(key, flight);
+            }
+        }
+        led.add(ledFlights.size());
+        try {
+            Map<K, V> values = loader.apply(keys);
+            ledFlights.forEach((key, flight) -> {
+                V value = values.get(key);
+                flights.computeIfPresent(key, (k, current) -> {
+                    if (current != flight) {
+                        return current;
+                    }
+                    publisher.accept(k, value);
+                    return null;
+                });
+                flight.complete(value);
+            });
+            return values;
+        } catch (RuntimeException | Error e) {
+            ledFlights.forEach((key, flight) -> {
+                flights.remove(key, flight);
+                flight.completeExceptionally(e);
+            });
+            throw e;
+        }
+    }
+
+    void forget(K key) {
+        flights.remove(key);
+    }
+
+    void forgetAll() {
+        flights.clear();
+    }
+
+    private V await(K key, CompletableFuture<V> running, Function<? super K, ? extends V> loader) {
+        try {
+            V value = running.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            coalesced.increment();
+            return value;
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            flights.remove(key, running);
+            return loader.apply(key);
+        } catch (ExecutionException e) {
+            coalesced.increment();
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name + " " + key, e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("course.single.flight.in.flight", flights, ConcurrentMap::size)
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("course.single.flight.loads", led, LongAdder::sum)
+                .tags("cache", name, "result", "led")
+                .register(registry);
+        FunctionCounter.builder("course.single.flight.loads", coalesced, LongAdder::sum)
+                .tags("cache", name, "result", "coalesced")
+                .register(registry);
+        FunctionCounter.builder("course.single.flight.loads", timedOut, LongAdder::sum)
+                .tags("cache", name, "result", "timed_out")
+                .register(registry);
+    }
+}
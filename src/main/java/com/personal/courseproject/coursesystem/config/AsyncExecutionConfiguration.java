@@ -0,0 +1,54 @@
+package com.personal.courseproject.coursesystem.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@ConditionalOnProperty(name = "course.execution.mode", havingValue = "async")
+public class AsyncExecutionConfiguration implements WebMvcConfigurer {
+    private final int poolSize;
+    private final int queueCapacity;
+
+    public AsyncExecutionConfiguration(@Value("${course.execution.async.pool-size:10}") int poolSize,
+                                       @Value("${course.execution.async.queue-capacity:10000}") int queueCapacity) {
+        this.poolSize = poolSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Runs the blocking JDBC work of async requests. It is sized to the connection pool, since more threads would
+     * only wait for connections, while the queue holds the requests in flight without tying up a Tomcat thread.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor courseRequestExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("course-request-");
+        executor.setTaskDecorator(task -> {
+            RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+            return () -> {
+                RequestContextHolder.setRequestAttributes(requestAttributes);
+                try {
+                    task.run();
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            };
+        });
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(courseRequestExecutor());
+    }
+}
@@ -0,0 +1,25 @@
+package com.personal.courseproject.coursesystem.config;
+
+import com.personal.courseproject.coursesystem.CourseFormat;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Replaces the CBOR and Smile converters Spring MVC registers by default with ones that write epoch timestamps.
+ * They keep their place behind the JSON converter, so JSON stays the answer unless a client asks otherwise.
+ */
+@Configuration
+public class BinaryFormatConfiguration {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(CourseFormat.CBOR.createBinaryMapper());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+        return new MappingJackson2SmileHttpMessageConverter(CourseFormat.SMILE.createBinaryMapper());
+    }
+}
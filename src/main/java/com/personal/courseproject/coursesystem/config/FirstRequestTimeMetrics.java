@@ -0,0 +1,37 @@
+package com.personal.courseproject.coursesystem.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes {@code application.first.request.time}: the time from JVM start until the first course API request
+ * was answered, next to Spring Boot's {@code application.started.time} and {@code application.ready.time}.
+ * Health probes and other non-API requests do not count.
+ */
+@Component
+public class FirstRequestTimeMetrics implements ApplicationListener<ServletRequestHandledEvent>, MeterBinder {
+    private static final String API_PATH = "/api/";
+
+    private volatile double firstRequestMillis = Double.NaN;
+
+    @Override
+    public void onApplicationEvent(ServletRequestHandledEvent event) {
+        if (Double.isNaN(firstRequestMillis) && event.getRequestUrl().startsWith(API_PATH)) {
+            firstRequestMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        TimeGauge.builder("application.first.request.time", this, TimeUnit.MILLISECONDS, metrics -> metrics.firstRequestMillis)
+                .description("Time from JVM start until the first API request was served")
+                .register(registry);
+    }
+}
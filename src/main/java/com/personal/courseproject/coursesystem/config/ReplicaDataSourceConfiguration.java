@@ -0,0 +1,58 @@
+package com.personal.courseproject.coursesystem.config;
+
+import com.personal.courseproject.coursesystem.datasource.RecentWrites;
+import com.personal.courseproject.coursesystem.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured data source when {@code course.datasource.replicas.urls} lists read replicas of
+ * {@code spring.datasource.url}. Every pool uses the credentials and {@code spring.datasource.hikari} settings of
+ * the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "course.datasource.replicas.urls")
+public class ReplicaDataSourceConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties, Environment environment,
+                                                             RecentWrites recentWrites,
+                                                             @Value("${course.datasource.replicas.urls}") String[] urls,
+                                                             @Value("${course.datasource.replicas.max-lag:PT5S}") Duration maxLag,
+                                                             @Value("${course.datasource.replicas.health-check-interval:PT5S}") Duration healthCheckInterval) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.length; i++) {
+            String name = "replica-" + (i + 1);
+            replicas.put(name, pool(properties, environment, urls[i].trim(), "course-" + name));
+        }
+        DataSource primary = pool(properties, environment, properties.determineUrl(), "course-primary");
+        return new ReplicaRoutingDataSource(primary, replicas, recentWrites, maxLag, healthCheckInterval);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Environment environment, String url, String poolName) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(poolName);
+        return dataSource;
+    }
+}
@@ -0,0 +1,41 @@
+package com.personal.courseproject.coursesystem.config;
+
+import com.personal.courseproject.coursesystem.cache.CourseCache;
+import com.personal.courseproject.coursesystem.cache.CourseJsonCache;
+import com.personal.courseproject.coursesystem.controller.AsyncCourseManagementController;
+import com.personal.courseproject.coursesystem.controller.CourseManagementController;
+import com.personal.courseproject.coursesystem.service.CourseManagementService;
+import com.personal.courseproject.coursesystem.throttle.CourseThrottlingFilter;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfiguration {
+
+    /**
+     * Keeps the beans every course request goes through eager when {@code spring.main.lazy-initialization} is on,
+     * so the first request does not pay for creating them. Everything else is created on first use.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.main.lazy-initialization", havingValue = "true")
+    public static LazyInitializationExcludeFilter eagerCourseRequestPath() {
+        return LazyInitializationExcludeFilter.forBeanTypes(CourseManagementController.class,
+                AsyncCourseManagementController.class, CourseManagementService.class, CourseCache.class,
+                CourseJsonCache.class, CourseThrottlingFilter.class);
+    }
+
+    /**
+     * Stops the application as soon as it is ready. Used for the training run that records the classes loaded
+     * during startup for the AppCDS archive.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "course.startup.exit-on-ready", havingValue = "true")
+    public ApplicationListener<ApplicationReadyEvent> exitOnReady() {
+        return event -> System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
@@ -0,0 +1,156 @@
+package com.personal.courseproject.coursesystem.controller;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.personal.courseproject.coursesystem.Course;
+import com.personal.courseproject.coursesystem.cache.CourseCacheStats;
+import com.personal.courseproject.coursesystem.exceptions.ErrorResponse;
+import com.personal.courseproject.coursesystem.service.CourseManagementService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Serves the same API as {@link CourseManagementController} when {@code course.execution.mode=async}, handing the
+ * JDBC work of each request to the bounded {@code courseRequestExecutor} so the servlet thread is released while it
+ * runs. Streams and exports write their body on that executor as the MVC async executor, change polls wait on a
+ * {@link DeferredResult} without holding a thread, and cache statistics are read from memory in place.
+ */
+@RestController
+@Component
+@ConditionalOnProperty(name = "course.execution.mode", havingValue = "async")
+public class AsyncCourseManagementController {
+
+    private final CourseManagementController delegate;
+    private final Executor courseRequestExecutor;
+
+    @Autowired
+    public AsyncCourseManagementController(CourseManagementService courseManagementService, ObjectMapper objectMapper,
+                                           @Qualifier("courseRequestExecutor") Executor courseRequestExecutor) {
+        this.delegate = new CourseManagementController(courseManagementService, objectMapper);
+        this.courseRequestExecutor = courseRequestExecutor;
+    }
+
+    @GetMapping(value = "/api/courses")
+    public CompletableFuture<ResponseEntity<Object>> getCourses(@RequestParam(required = false) Integer after,
+                                                                @RequestParam(required = false) Integer limit,
+                                                                @RequestParam(required = false) List<Integer> ids,
+                                                                WebRequest webRequest) {
+        return execute(() -> delegate.getCourses(after, limit, ids, webRequest));
+    }
+
+    @GetMapping(value = "/api/courses/created")
+    public CompletableFuture<ResponseEntity<Object>> getCoursesCreatedBetween(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                              @RequestParam(required = false) Integer after,
+                                                                              @RequestParam(required = false) Integer limit) {
+        return execute(() -> delegate.getCoursesCreatedBetween(from, to, after, limit));
+    }
+
+    @GetMapping(value = "/api/courses/search")
+    public CompletableFuture<ResponseEntity<Object>> searchCourses(@RequestParam(required = false) String q,
+                                                                   @RequestParam(defaultValue = "0") int offset,
+                                                                   @RequestParam(required = false) Integer limit) {
+        return execute(() -> delegate.searchCourses(q, offset, limit));
+    }
+
+    @GetMapping(value = "/api/courses/changes")
+    public DeferredResult<ResponseEntity<Object>> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                             @RequestParam(required = false) Integer limit,
+                                                             @RequestParam(defaultValue = "0") long wait) {
+        return delegate.getChanges(since, limit, wait);
+    }
+
+    @GetMapping(value = "/api/courses/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCourses() {
+        return delegate.streamCourses();
+    }
+
+    @GetMapping(value = "/api/courses/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<StreamingResponseBody> exportCourses(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return delegate.exportCourses(accept, acceptEncoding);
+    }
+
+    @GetMapping(value = "/api/courses/cache/stats")
+    public CourseCacheStats getCacheStats() {
+        return delegate.getCacheStats();
+    }
+
+    @GetMapping(value = "/api/courses/{id}")
+    public CompletableFuture<ResponseEntity<Object>> getCoursesById(@PathVariable Integer id, WebRequest webRequest) {
+        return execute(() -> delegate.getCoursesById(id, webRequest));
+    }
+
+    @PostMapping(value = "/api/courses", consumes = "application/json", produces = "application/json")
+    public CompletableFuture<ResponseEntity<Object>> addCourses(@RequestBody Course course) {
+        return execute(() -> delegate.addCourses(course));
+    }
+
+    @PostMapping(value = "/api/courses/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = "application/json")
+    public CompletableFuture<ResponseEntity<Object>> importCourses(InputStream body) {
+        return execute(() -> {
+            try {
+                return delegate.importCourses(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @PostMapping(value = "/api/courses/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE},
+            produces = "application/json")
+    public CompletableFuture<ResponseEntity<Object>> importCatalog(InputStream body,
+                                                                   @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                   @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding) {
+        return execute(() -> {
+            try {
+                return delegate.importCatalog(body, contentType, contentEncoding);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @PutMapping(value = "/api/courses/{id}")
+    @JsonProperty("id")
+    public CompletableFuture<ResponseEntity<Object>> updateCourses(@PathVariable Integer id, @RequestBody Course updatedCourse) {
+        return execute(() -> delegate.updateCourses(id, updatedCourse));
+    }
+
+    @DeleteMapping(value = "/api/courses/{id}")
+    @JsonProperty("id")
+    public CompletableFuture<ResponseEntity<Object>> deleteCourses(@PathVariable Integer id) {
+        return execute(() -> delegate.deleteCourses(id));
+    }
+
+    private CompletableFuture<ResponseEntity<Object>> execute(Supplier<ResponseEntity<Object>> handler) {
+        try {
+            return CompletableFuture.supplyAsync(handler, courseRequestExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ErrorResponse("Too many course requests in flight, please retry")));
+        }
+    }
+}
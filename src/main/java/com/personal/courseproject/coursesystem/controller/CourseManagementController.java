@@ -1,40 +1,374 @@
 package com.personal.courseproject.coursesystem.controller;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.personal.courseproject.coursesystem.Course;
+import com.personal.courseproject.coursesystem.CourseFormat;
+import com.personal.courseproject.coursesystem.cache.CourseCacheStats;
+import com.personal.courseproject.coursesystem.cache.CourseListSnapshot;
+import com.personal.courseproject.coursesystem.exceptions.DuplicateCourseTitleException;
 import com.personal.courseproject.coursesystem.exceptions.ErrorResponse;
+import com.personal.courseproject.coursesystem.service.CourseImportSummary;
 import com.personal.courseproject.coursesystem.service.CourseManagementService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
 
 @RestController
 @Component
+@ConditionalOnProperty(name = "course.execution.mode", havingValue = "blocking", matchIfMissing = true)
 public class CourseManagementController {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final long MAX_CHANGES_WAIT_SECONDS = 30;
+    private static final int MAX_REPORTED_IMPORT_REJECTIONS = 100;
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
 
     private final CourseManagementService courseManagementService;
+    private final ObjectWriter courseWriter;
+    private final ObjectReader courseReader;
+    private final ObjectWriter courseCsvWriter;
+    private final ObjectReader courseCsvReader;
+    private final byte[] csvHeader;
 
     @Autowired
-    public CourseManagementController(CourseManagementService courseManagementService) {
+    public CourseManagementController(CourseManagementService courseManagementService, ObjectMapper objectMapper) {
         this.courseManagementService = courseManagementService;
+        this.courseWriter = objectMapper.writerFor(Course.class);
+        this.courseReader = objectMapper.readerFor(Course.class);
+        CsvMapper csvMapper = CsvMapper.builder()
+                .addModule(new JavaTimeModule())
+                .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        CsvSchema csvSchema = csvMapper.schemaFor(Course.class);
+        this.courseCsvWriter = csvMapper.writer(csvSchema);
+        this.courseCsvReader = csvMapper.readerFor(Course.class).with(CsvSchema.emptySchema().withHeader());
+        StringJoiner header = new StringJoiner(",", "", "\n");
+        csvSchema.forEach(column -> header.add(column.getName()));
+        this.csvHeader = header.toString().getBytes(StandardCharsets.UTF_8);
     }
 
     @GetMapping(value = "/api/courses")
-    public List<Course> getCourses() {
-        return courseManagementService.getCourses();
+    public ResponseEntity<Object> getCourses(@RequestParam(required = false) Integer after,
+                                             @RequestParam(required = false) Integer limit,
+                                             @RequestParam(required = false) List<Integer> ids,
+                                             WebRequest webRequest) {
+        CourseFormat format = CourseFormat.negotiate(webRequest.getHeader(HttpHeaders.ACCEPT));
+        // Pages may be read from a replica that has not replayed the latest write, so they must not carry its tag.
+        boolean untagged = ids == null && (after != null || limit != null) && courseManagementService.isCatalogPending();
+        if (!untagged && webRequest.checkNotModified("catalog-" + courseManagementService.getCatalogVersion() + eTagSuffixOf(format))) {
+            return null;
+        }
+        if (ids != null) {
+            if (ids.isEmpty() || ids.size() > MAX_PAGE_SIZE || ids.contains(null)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("ids must list between 1 and " + MAX_PAGE_SIZE + " course ids"));
+            }
+            return ResponseEntity.status(HttpStatus.OK).body(courseManagementService.getCoursesByIds(ids));
+        }
+        if (after == null && limit == null) {
+            CourseListSnapshot snapshot = courseManagementService.getCourseListSnapshot(format);
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK)
+                    .contentType(format.getMediaType())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+            if (acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzippedBody());
+            }
+            return response.body(snapshot.getBody());
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        List<Course> courses = courseManagementService.getCourses(after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+        if (courses.size() == pageSize) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", courses.get(pageSize - 1).getId())
+                    .replaceQueryParam("limit", pageSize)
+                    .build(true)
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(courses);
+    }
+
+    /**
+     * Pages through the courses created in {@code [from, to)} in creation order. The next link continues from the
+     * creation time and id of the last course, since many courses can share a creation time.
+     */
+    @GetMapping(value = "/api/courses/created")
+    public ResponseEntity<Object> getCoursesCreatedBetween(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                           @RequestParam(required = false) Integer after,
+                                                           @RequestParam(required = false) Integer limit) {
+        if (from == null || to == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("from and to are required"));
+        }
+        if (!from.isBefore(to)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("from must be before to"));
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        List<Course> courses = courseManagementService.getCoursesCreatedBetween(from, to, after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+        if (courses.size() == pageSize) {
+            Course last = courses.get(pageSize - 1);
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("from", last.getCreatedAt())
+                    .replaceQueryParam("after", last.getId())
+                    .replaceQueryParam("limit", pageSize)
+                    .build(true)
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(courses);
+    }
+
+    @GetMapping(value = "/api/courses/search")
+    public ResponseEntity<Object> searchCourses(@RequestParam(required = false) String q,
+                                                @RequestParam(defaultValue = "0") int offset,
+                                                @RequestParam(required = false) Integer limit) {
+        if (q == null || q.isBlank()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("q is required"));
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        if (offset < 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("offset must not be negative"));
+        }
+        List<Course> courses = courseManagementService.searchCourses(q, offset, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+        if (courses.size() == pageSize) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("offset", offset + pageSize)
+                    .replaceQueryParam("limit", pageSize)
+                    .build(true)
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(courses);
+    }
+
+    @GetMapping(value = "/api/courses/changes")
+    public DeferredResult<ResponseEntity<Object>> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                             @RequestParam(required = false) Integer limit,
+                                                             @RequestParam(defaultValue = "0") long wait) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return completed(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("limit must be between 1 and " + MAX_PAGE_SIZE)));
+        }
+        if (wait < 0 || wait > MAX_CHANGES_WAIT_SECONDS) {
+            return completed(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("wait must be between 0 and " + MAX_CHANGES_WAIT_SECONDS + " seconds")));
+        }
+        if (wait == 0) {
+            return completed(ResponseEntity.status(HttpStatus.OK).body(courseManagementService.getChanges(since, pageSize)));
+        }
+        DeferredResult<ResponseEntity<Object>> result = new DeferredResult<>(TimeUnit.SECONDS.toMillis(wait),
+                () -> ResponseEntity.status(HttpStatus.OK).body(Collections.emptyList()));
+        result.onCompletion(courseManagementService.subscribeToChanges(since, pageSize,
+                changes -> result.setResult(ResponseEntity.status(HttpStatus.OK).body(changes))));
+        return result;
+    }
+
+    private static DeferredResult<ResponseEntity<Object>> completed(ResponseEntity<Object> response) {
+        DeferredResult<ResponseEntity<Object>> result = new DeferredResult<>();
+        result.setResult(response);
+        return result;
+    }
+
+    @GetMapping(value = "/api/courses/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCourses() {
+        StreamingResponseBody body = outputStream -> courseManagementService.streamCourses(course -> {
+            try {
+                outputStream.write(courseWriter.writeValueAsBytes(course));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Streams the whole catalog off the database cursor as NDJSON, or as CSV with a header row when the client
+     * prefers {@code text/csv}. The body is gzipped when the client accepts it.
+     */
+    @GetMapping(value = "/api/courses/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    public ResponseEntity<StreamingResponseBody> exportCourses(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean csv = prefersCsv(accept);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = outputStream -> {
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, TRANSFER_BUFFER_SIZE)
+                    : new BufferedOutputStream(outputStream, TRANSFER_BUFFER_SIZE);
+            if (csv) {
+                target.write(csvHeader);
+            }
+            courseManagementService.streamCourses(course -> {
+                try {
+                    if (csv) {
+                        target.write(courseCsvWriter.writeValueAsBytes(course));
+                    } else {
+                        target.write(courseWriter.writeValueAsBytes(course));
+                        target.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (gzip) {
+                ((GZIPOutputStream) target).finish();
+            }
+            target.flush();
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK)
+                .contentType(csv ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(csv ? "courses.csv" : "courses.ndjson").build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Reads the codings of Accept-Encoding with their q-values. gzip is accepted when listed, or covered by
+     * {@code *}, with a q-value above zero; an explicit gzip entry takes precedence over {@code *}.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim().toLowerCase(Locale.ROOT);
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipQuality = Math.max(gzipQuality == null ? 0 : gzipQuality, qualityOf(parameters));
+            } else if (name.equals("*")) {
+                anyQuality = qualityOf(parameters);
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return anyQuality != null && anyQuality > 0;
+    }
+
+    private static double qualityOf(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static boolean prefersCsv(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.includes(MediaType.APPLICATION_NDJSON)) {
+                return false;
+            }
+            if (mediaType.includes(TEXT_CSV)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @GetMapping(value = "/api/courses/cache/stats")
+    public CourseCacheStats getCacheStats() {
+        return courseManagementService.getCacheStats();
     }
 
     @GetMapping(value = "/api/courses/{id}")
-    public ResponseEntity<Object> getCoursesById(@PathVariable Integer id) {
+    public ResponseEntity<Object> getCoursesById(@PathVariable Integer id, WebRequest webRequest) {
         Course course = courseManagementService.getCoursesById(id);
         if (course == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
         }
-        return ResponseEntity.status(HttpStatus.OK).body(course);
+        CourseFormat format = CourseFormat.negotiate(webRequest.getHeader(HttpHeaders.ACCEPT));
+        if (course.getId() != null && webRequest.checkNotModified(eTagOf(course) + eTagSuffixOf(format), lastModifiedOf(course))) {
+            return null;
+        }
+        return ResponseEntity.status(HttpStatus.OK).contentType(format.getMediaType())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(courseManagementService.getCourseBody(course, format));
+    }
+
+    // Every write bumps the version, so it tells the states of a course apart where a hash of it might collide.
+    private static String eTagOf(Course course) {
+        return course.getId() + "-" + course.getVersion();
+    }
+
+    /**
+     * Keeps the JSON tags as they were and gives each binary encoding its own, since the bytes differ.
+     */
+    private static String eTagSuffixOf(CourseFormat format) {
+        return format.isBinary() ? "-" + format.name().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static long lastModifiedOf(Course course) {
+        LocalDateTime modifiedAt = course.getUpdatedAt() != null ? course.getUpdatedAt() : course.getCreatedAt();
+        return modifiedAt == null ? -1 : modifiedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 
     @PostMapping(value = "/api/courses", consumes = "application/json", produces = "application/json")
@@ -49,25 +383,107 @@ public class CourseManagementController {
         return ResponseEntity.status(HttpStatus.CREATED).body(course1);
     }
 
+    @PostMapping(value = "/api/courses/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = "application/json")
+    public ResponseEntity<Object> importCourses(InputStream body) throws IOException {
+        try (MappingIterator<Course> courses = courseReader.readValues(body)) {
+            return ResponseEntity.status(HttpStatus.OK).body(courseManagementService.importCourses(courses));
+        } catch (JsonProcessingException e) {
+            return malformedPayload(e);
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof JsonProcessingException) {
+                return malformedPayload((JsonProcessingException) e.getCause());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Loads a catalog export (CSV with a header row, or NDJSON, optionally gzipped) without buffering it. Only
+     * the counts and the first rejections are reported back, so the response stays small for any file size.
+     */
+    @PostMapping(value = "/api/courses/import", consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = "application/json")
+    public ResponseEntity<Object> importCatalog(InputStream body,
+                                                @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding) throws IOException {
+        ObjectReader reader = TEXT_CSV.isCompatibleWith(MediaType.parseMediaType(contentType)) ? courseCsvReader : courseReader;
+        CourseImportSummary summary = new CourseImportSummary(MAX_REPORTED_IMPORT_REJECTIONS);
+        try (InputStream input = "gzip".equalsIgnoreCase(contentEncoding) ? new GZIPInputStream(body, TRANSFER_BUFFER_SIZE) : body;
+             MappingIterator<Course> courses = reader.readValues(input)) {
+            courseManagementService.importCourses(courses, summary);
+            return ResponseEntity.status(HttpStatus.OK).body(summary);
+        } catch (JsonProcessingException e) {
+            return malformedImport(e.getOriginalMessage(), summary);
+        } catch (ZipException e) {
+            return malformedImport(e.getMessage(), summary);
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof JsonProcessingException) {
+                return malformedImport(((JsonProcessingException) e.getCause()).getOriginalMessage(), summary);
+            }
+            if (e.getCause() instanceof ZipException) {
+                return malformedImport(e.getCause().getMessage(), summary);
+            }
+            throw e;
+        }
+    }
+
+    private ResponseEntity<Object> malformedImport(String message, CourseImportSummary summary) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("Malformed course payload: " + message
+                + " (" + summary.getCreated() + " courses were imported before the error)"));
+    }
+
+    private ResponseEntity<Object> malformedPayload(JsonProcessingException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("Malformed course payload: " + e.getOriginalMessage()));
+    }
+
     @PutMapping(value = "/api/courses/{id}")
     @JsonProperty("id")
     public ResponseEntity<Object> updateCourses(@PathVariable Integer id, @RequestBody Course updatedCourse) {
         if (updatedCourse.getName() == null) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("Course title is required"));
         }
-        Course updateCourse = courseManagementService.updateCourses(id, updatedCourse);
+        if (updatedCourse.getVersion() == null && courseManagementService.isWritingBehind()) {
+            return queueCourseUpdate(id, updatedCourse);
+        }
+        Course updateCourse;
+        try {
+            updateCourse = courseManagementService.updateCourses(id, updatedCourse);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(e.getMessage()));
+        } catch (DuplicateCourseTitleException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse(e.getMessage()));
+        }
         if (updateCourse == null) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("Course with id=" + id + " not found"));
         }
         return ResponseEntity.status(HttpStatus.CREATED).body(updateCourse);
     }
 
+    /**
+     * Answers 202 once the update is journaled. Updates that carry a version are not queued, because the version
+     * can only be checked against the database when the update is written.
+     */
+    private ResponseEntity<Object> queueCourseUpdate(Integer id, Course updatedCourse) {
+        Course acceptedCourse;
+        try {
+            acceptedCourse = courseManagementService.queueCourseUpdate(id, updatedCourse);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ErrorResponse("Too many course updates queued, please retry"));
+        } catch (DuplicateCourseTitleException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse(e.getMessage()));
+        }
+        if (acceptedCourse == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("Course with id=" + id + " not found"));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(acceptedCourse);
+    }
+
     @DeleteMapping(value = "/api/courses/{id}")
     @JsonProperty("id")
     public ResponseEntity<Object> deleteCourses(@PathVariable Integer id) {
         boolean isDelete = courseManagementService.deleteCourses(id);
         if (isDelete) {
-            courseManagementService.deleteCourses(id);
             return new ResponseEntity<>(HttpStatus.OK);
         }
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse("Course with id=" + id + " not found"));
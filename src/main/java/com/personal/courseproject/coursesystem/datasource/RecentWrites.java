@@ -0,0 +1,83 @@
+package com.personal.courseproject.coursesystem.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Remembers which courses this instance wrote to the primary, or heard another instance write, within the last
+ * {@code course.datasource.replicas.max-lag}. Reads that refill a cache with one of them, or with the course list
+ * after any write, run through {@link #onPrimaryIf} and stay on the primary, so caches are never filled from a
+ * replica that has not replayed the write yet. All other reads keep going to the replicas.
+ */
+@Component
+public class RecentWrites {
+    private final long windowNanos;
+    private final Cache<Integer, Boolean> writtenCourses;
+    private final ThreadLocal<Boolean> onPrimary = ThreadLocal.withInitial(() -> false);
+    private volatile long lastWrite;
+    private volatile long lastUnknownWrite;
+
+    @Autowired
+    public RecentWrites(@Value("${course.datasource.replicas.max-lag:PT5S}") Duration maxLag) {
+        this.windowNanos = maxLag.toNanos();
+        this.writtenCourses = Caffeine.newBuilder()
+                .expireAfterWrite(maxLag)
+                .build();
+        this.lastWrite = System.nanoTime() - windowNanos;
+        this.lastUnknownWrite = lastWrite;
+    }
+
+    /**
+     * Records a write of the courses {@code ids}, which also changes the course list.
+     */
+    public void written(Collection<Integer> ids) {
+        ids.forEach(id -> writtenCourses.put(id, Boolean.TRUE));
+        lastWrite = System.nanoTime();
+    }
+
+    /**
+     * Records writes to courses that are not known, as when invalidations from other instances may have been missed.
+     */
+    public void writtenAnything() {
+        lastWrite = System.nanoTime();
+        lastUnknownWrite = lastWrite;
+    }
+
+    public boolean isPending(int id) {
+        return isRecent(lastUnknownWrite) || writtenCourses.getIfPresent(id) != null;
+    }
+
+    public boolean isListPending() {
+        return isRecent(lastWrite);
+    }
+
+    /**
+     * Runs {@code read} on the primary when {@code pending}, even within a read-only transaction.
+     */
+    public <T> T onPrimaryIf(boolean pending, Supplier<T> read) {
+        if (!pending || onPrimary.get()) {
+            return read.get();
+        }
+        onPrimary.set(true);
+        try {
+            return read.get();
+        } finally {
+            onPrimary.remove();
+        }
+    }
+
+    boolean isOnPrimary() {
+        return onPrimary.get();
+    }
+
+    private boolean isRecent(long write) {
+        return System.nanoTime() - write < windowNanos;
+    }
+}
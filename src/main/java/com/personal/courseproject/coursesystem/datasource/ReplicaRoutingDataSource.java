@@ -0,0 +1,158 @@
+package com.personal.courseproject.coursesystem.datasource;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends connections for read-only transactions to the replicas in round robin and everything else to the
+ * primary. Reads also stay on the primary when they run through {@link RecentWrites#onPrimaryIf}, which cache
+ * refills of recently written courses do, and whenever no replica is up.
+ * <p>
+ * A replica is up while it answers the periodic health check with a replay lag of at most {@code maxLag}; a
+ * failed connection attempt takes it down at once and the read moves on to the next one. A replica whose WAL
+ * receiver is not streaming cannot tell how far behind it is, and counts as down. The read-only flag is
+ * only known once the transaction is set up, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements MeterBinder, Closeable {
+    // Null while the lag is unknown. Without pg_read_all_stats the status is hidden, and a running receiver has to do.
+    private static final String REPLAY_LAG =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0"
+                    + " WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE coalesce(status, 'streaming') = 'streaming')"
+                    + " THEN NULL"
+                    + " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+                    + " ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final RecentWrites recentWrites;
+    private final double maxLagSeconds;
+    private final Duration healthCheckInterval;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryReads = new LongAdder();
+    private final ScheduledExecutorService healthCheck = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "course-replica-health");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, RecentWrites recentWrites,
+                                    Duration maxLag, Duration healthCheckInterval) {
+        this.primary = primary;
+        this.recentWrites = recentWrites;
+        this.maxLagSeconds = maxLag.toNanos() / 1e9;
+        this.healthCheckInterval = healthCheckInterval;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+    }
+
+    /**
+     * Starts the health checks. Until the first one has passed, reads go to the primary.
+     */
+    public void start() {
+        healthCheck.scheduleWithFixedDelay(this::checkReplicas, 0, healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !recentWrites.isOnPrimary()) {
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+                if (replica.up) {
+                    try {
+                        Connection connection = replica.dataSource.getConnection();
+                        replica.reads.increment();
+                        return connection;
+                    } catch (SQLException e) {
+                        replica.up = false;
+                    }
+                }
+            }
+            primaryReads.increment();
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Always opens a connection to the primary, as the replicas are only known with their configured credentials.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(REPLAY_LAG)) {
+                replica.up = resultSet.next() && resultSet.getDouble(1) <= maxLagSeconds && !resultSet.wasNull();
+            } catch (SQLException | RuntimeException e) {
+                replica.up = false;
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("course.datasource.reads", primaryReads, LongAdder::sum)
+                .description("Read-only transactions by the data source that served them")
+                .tag("target", "primary")
+                .register(registry);
+        for (Replica replica : replicas) {
+            FunctionCounter.builder("course.datasource.reads", replica.reads, LongAdder::sum)
+                    .tag("target", replica.name)
+                    .register(registry);
+            Gauge.builder("course.datasource.replica.up", replica, r -> r.up ? 1 : 0)
+                    .tag("replica", replica.name)
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        healthCheck.shutdownNow();
+        for (Replica replica : replicas) {
+            close(replica.dataSource);
+        }
+        close(primary);
+    }
+
+    private static void close(DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable) {
+            ((Closeable) dataSource).close();
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final LongAdder reads = new LongAdder();
+        private volatile boolean up;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
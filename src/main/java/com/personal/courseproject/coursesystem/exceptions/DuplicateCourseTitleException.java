@@ -0,0 +1,11 @@
+package com.personal.courseproject.coursesystem.exceptions;
+
+/**
+ * Thrown when a course would be renamed to a title another course already has.
+ */
+public class DuplicateCourseTitleException extends RuntimeException {
+
+    public DuplicateCourseTitleException(String name) {
+        super("Course with title " + name + " already exists");
+    }
+}
@@ -0,0 +1,57 @@
+package com.personal.courseproject.coursesystem.invalidation;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * What another instance has to forget after a write: the courses it may hold under their id and their name before
+ * the write, and the course list in any case. An invalidation of everything is delivered when changes may have been
+ * missed, for example while the subscription was reconnecting.
+ */
+public final class CourseInvalidation {
+    private static final CourseInvalidation LIST = new CourseInvalidation(Collections.emptyMap(), false);
+    private static final CourseInvalidation EVERYTHING = new CourseInvalidation(Collections.emptyMap(), true);
+
+    private final Map<Integer, String> courses;
+    private final boolean everything;
+
+    private CourseInvalidation(Map<Integer, String> courses, boolean everything) {
+        this.courses = courses;
+        this.everything = everything;
+    }
+
+    /**
+     * Only the list changed, as after an insert: new courses cannot be cached anywhere yet.
+     */
+    public static CourseInvalidation list() {
+        return LIST;
+    }
+
+    public static CourseInvalidation course(Integer id, String name) {
+        return new CourseInvalidation(Collections.singletonMap(id, name), false);
+    }
+
+    /**
+     * @param courses the name each course had before the write, by id
+     */
+    public static CourseInvalidation courses(Map<Integer, String> courses) {
+        return courses.isEmpty() ? LIST : new CourseInvalidation(Collections.unmodifiableMap(courses), false);
+    }
+
+    public static CourseInvalidation everything() {
+        return EVERYTHING;
+    }
+
+    public Map<Integer, String> getCourses() {
+        return courses;
+    }
+
+    public boolean isEverything() {
+        return everything;
+    }
+
+    @Override
+    public String toString() {
+        return everything ? "CourseInvalidation{everything}" : "CourseInvalidation{courses=" + courses + "}";
+    }
+}
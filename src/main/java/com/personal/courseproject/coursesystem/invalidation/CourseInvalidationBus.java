@@ -0,0 +1,22 @@
+package com.personal.courseproject.coursesystem.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries cache invalidations between the instances of the service. Each instance publishes after its writes have
+ * committed and subscribes to the writes of all others; {@code course.invalidation.bus} picks the implementation.
+ */
+public interface CourseInvalidationBus {
+
+    /**
+     * Tells the other instances about a committed write. Must not throw: the write has already happened, and
+     * caches that miss an invalidation still expire after {@code course.cache.expire-after-write}.
+     */
+    void publish(CourseInvalidation invalidation);
+
+    /**
+     * Registers {@code subscriber} for the invalidations published by other instances. It is never called for
+     * this instance's own invalidations and may be called from a thread of the bus.
+     */
+    void subscribe(Consumer<CourseInvalidation> subscriber);
+}
@@ -0,0 +1,47 @@
+package com.personal.courseproject.coursesystem.invalidation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers invalidations synchronously between buses of the same JVM, standing in for several instances in tests.
+ * A bus created with the constructor is alone, which also suits a single instance without a database to notify
+ * through; {@link #join} adds another instance to it.
+ */
+@Component
+@ConditionalOnProperty(name = "course.invalidation.bus", havingValue = "memory")
+public class InMemoryCourseInvalidationBus implements CourseInvalidationBus {
+    private final List<InMemoryCourseInvalidationBus> members;
+    private final List<Consumer<CourseInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    public InMemoryCourseInvalidationBus() {
+        this(new CopyOnWriteArrayList<>());
+    }
+
+    private InMemoryCourseInvalidationBus(List<InMemoryCourseInvalidationBus> members) {
+        this.members = members;
+        members.add(this);
+    }
+
+    public InMemoryCourseInvalidationBus join() {
+        return new InMemoryCourseInvalidationBus(members);
+    }
+
+    @Override
+    public void publish(CourseInvalidation invalidation) {
+        for (InMemoryCourseInvalidationBus member : members) {
+            if (member != this) {
+                member.subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CourseInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+}
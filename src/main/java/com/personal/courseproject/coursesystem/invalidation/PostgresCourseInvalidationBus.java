@@ -0,0 +1,271 @@
+package com.personal.courseproject.coursesystem.invalidation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.personal.courseproject.coursesystem.datasource.RecentWrites;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Sends invalidations through Postgres {@code NOTIFY} on the primary, so every instance of the service sharing the
+ * database hears about them once the write has committed. One connection of the pool is held for {@code LISTEN};
+ * when it breaks, the bus reconnects after {@code course.invalidation.reconnect-interval} and then invalidates
+ * everything, because notifications sent in between are lost.
+ * <p>
+ * Large invalidations are split into several notifications, as Postgres limits a payload to 8000 bytes.
+ */
+@Component
+@ConditionalOnProperty(name = "course.invalidation.bus", havingValue = "postgres", matchIfMissing = true)
+public class PostgresCourseInvalidationBus implements CourseInvalidationBus, SmartLifecycle, MeterBinder {
+    static final String CHANNEL = "course_invalidation";
+    // Subscribed before the web server takes requests.
+    private static final int PHASE = Integer.MAX_VALUE - 2;
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    // Origin, flags and braces of a payload, and quotes, separators and the id of each course in it.
+    private static final int ENVELOPE_BYTES = 100;
+    private static final int COURSE_BYTES = 16;
+    private static final String NOTIFY = "SELECT pg_notify('" + CHANNEL + "', payload) FROM unnest(?) AS payload";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final RecentWrites recentWrites;
+    private final ObjectMapper objectMapper;
+    private final long reconnectIntervalMillis;
+    private final String origin = UUID.randomUUID().toString();
+    private final List<Consumer<CourseInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder publishFailures = new LongAdder();
+    private final LongAdder listenFailures = new LongAdder();
+    private volatile boolean listening;
+    private volatile boolean running;
+    private Thread listener;
+
+    @Autowired
+    public PostgresCourseInvalidationBus(JdbcTemplate jdbcTemplate, DataSource dataSource, RecentWrites recentWrites,
+                                         ObjectMapper objectMapper,
+                                         @Value("${course.invalidation.reconnect-interval:PT1S}") Duration reconnectInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.recentWrites = recentWrites;
+        this.objectMapper = objectMapper;
+        this.reconnectIntervalMillis = reconnectInterval.toMillis();
+    }
+
+    @Override
+    public void publish(CourseInvalidation invalidation) {
+        List<String> payloads = payloads(invalidation);
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(NOTIFY);
+                statement.setArray(1, connection.createArrayOf("text", payloads.toArray()));
+                return statement;
+            }, resultSet -> null);
+            published.add(payloads.size());
+        } catch (DataAccessException e) {
+            publishFailures.increment();
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CourseInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    List<String> payloads(CourseInvalidation invalidation) {
+        List<String> payloads = new ArrayList<>();
+        Map<Integer, String> courses = new LinkedHashMap<>();
+        int size = ENVELOPE_BYTES;
+        for (Map.Entry<Integer, String> course : invalidation.getCourses().entrySet()) {
+            int courseSize = COURSE_BYTES + JsonStringEncoder.getInstance().quoteAsUTF8(course.getValue()).length;
+            if (!courses.isEmpty() && size + courseSize > MAX_PAYLOAD_BYTES) {
+                payloads.add(payload(courses, false));
+                courses.clear();
+                size = ENVELOPE_BYTES;
+            }
+            courses.put(course.getKey(), course.getValue());
+            size += courseSize;
+        }
+        if (payloads.isEmpty() || !courses.isEmpty()) {
+            payloads.add(payload(courses, invalidation.isEverything()));
+        }
+        return payloads;
+    }
+
+    private String payload(Map<Integer, String> courses, boolean everything) {
+        ObjectNode payload = objectMapper.createObjectNode()
+                .put("origin", origin)
+                .put("everything", everything);
+        ObjectNode names = payload.putObject("courses");
+        courses.forEach((id, name) -> names.put(id.toString(), name));
+        return payload.toString();
+    }
+
+    private void listen() {
+        // Courses may have been cached before the first LISTEN, so that counts as a reconnect as well.
+        boolean missed = true;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try {
+                    listen(connection, missed);
+                } finally {
+                    listening = false;
+                    unlisten(connection);
+                }
+            } catch (SQLException | RuntimeException e) {
+                listenFailures.increment();
+                missed = true;
+                pause();
+            }
+        }
+    }
+
+    private void listen(Connection connection, boolean missed) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        }
+        listening = true;
+        if (missed) {
+            deliver(CourseInvalidation.everything());
+        }
+        PGConnection notifications = connection.unwrap(PGConnection.class);
+        while (running) {
+            PGNotification[] received = notifications.getNotifications(POLL_TIMEOUT_MILLIS);
+            if (received != null) {
+                for (PGNotification notification : received) {
+                    receive(notification.getParameter());
+                }
+            }
+        }
+    }
+
+    // The connection goes back to the pool, where it must not keep collecting notifications.
+    private static void unlisten(Connection connection) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("UNLISTEN *");
+        } catch (SQLException e) {
+            // the connection is broken and the pool discards it
+        }
+    }
+
+    void receive(String payload) {
+        JsonNode message;
+        try {
+            message = objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            listenFailures.increment();
+            return;
+        }
+        if (origin.equals(message.path("origin").asText())) {
+            return;
+        }
+        received.increment();
+        Map<Integer, String> courses = new HashMap<>();
+        message.path("courses").fields()
+                .forEachRemaining(course -> courses.put(Integer.valueOf(course.getKey()), course.getValue().asText()));
+        // The write went to the primary, and caches refilled now must not read from a replica that lags behind it.
+        if (message.path("everything").asBoolean()) {
+            recentWrites.writtenAnything();
+            deliver(CourseInvalidation.everything());
+        } else {
+            recentWrites.written(courses.keySet());
+            deliver(CourseInvalidation.courses(courses));
+        }
+    }
+
+    private void deliver(CourseInvalidation invalidation) {
+        subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(reconnectIntervalMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "course-invalidation");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        listener.interrupt();
+        try {
+            listener.join(POLL_TIMEOUT_MILLIS * 4L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("course.invalidation.listening", this, bus -> bus.listening ? 1 : 0)
+                .description("Whether this instance currently receives the invalidations of other instances")
+                .register(registry);
+        messages(registry, "published", published);
+        messages(registry, "received", received);
+        failures(registry, "publish", publishFailures);
+        failures(registry, "listen", listenFailures);
+    }
+
+    private static void messages(MeterRegistry registry, String direction, LongAdder count) {
+        FunctionCounter.builder("course.invalidation.messages", count, LongAdder::sum)
+                .tag("direction", direction)
+                .register(registry);
+    }
+
+    private static void failures(MeterRegistry registry, String operation, LongAdder count) {
+        FunctionCounter.builder("course.invalidation.failures", count, LongAdder::sum)
+                .tag("operation", operation)
+                .register(registry);
+    }
+}
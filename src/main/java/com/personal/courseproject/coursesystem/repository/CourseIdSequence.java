@@ -0,0 +1,31 @@
+package com.personal.courseproject.coursesystem.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out course ids in blocks of {@link #ALLOCATION_SIZE} per {@code nextval}, using the same pooled-lo
+ * scheme Hibernate applies to {@code Course}, so JDBC and JPA inserts never collide and rarely touch the sequence.
+ */
+@Component
+public class CourseIdSequence {
+    static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private int next;
+    private int limit;
+
+    @Autowired
+    public CourseIdSequence(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public synchronized int nextId() {
+        if (next == limit) {
+            next = jdbcTemplate.queryForObject("SELECT nextval('course_id_seq')", Integer.class);
+            limit = next + ALLOCATION_SIZE;
+        }
+        return next++;
+    }
+}
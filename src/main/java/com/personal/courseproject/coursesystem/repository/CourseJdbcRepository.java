@@ -0,0 +1,376 @@
+package com.personal.courseproject.coursesystem.repository;
+
+import com.personal.courseproject.coursesystem.Course;
+import com.personal.courseproject.coursesystem.CourseChange;
+import com.personal.courseproject.coursesystem.CourseChange.Operation;
+import com.personal.courseproject.coursesystem.datasource.RecentWrites;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reads and writes the course table, which is split into {@link #PARTITIONS} partitions by {@code ID % PARTITIONS}.
+ * Statements for a single id go straight to its partition, since PostgreSQL 10 prunes partitions only while
+ * planning and would plan every execution against all of them. Names are kept unique in course_name, written in
+ * the same statement as the course.
+ * <p>
+ * Every write also appends to course_change, whose SEQ readers of the change feed use as their cursor. Writers
+ * leave SEQ empty and {@link #sequenceChanges} hands it out after they have committed, so a reader that sees a SEQ
+ * has already seen every smaller one that will ever exist, however long the transactions of other writers run.
+ */
+@Repository
+public class CourseJdbcRepository {
+    // Must match the partitions created in V1.9__PartitionCourseById.sql.
+    static final int PARTITIONS = 16;
+
+    private static final String COLUMNS = "ID, NAME, DESCRIPTION, CREATED_AT, UPDATED_AT, VERSION";
+    private static final String SELECT_ALL_ORDERED_BY_ID = "SELECT " + COLUMNS + " FROM course ORDER BY ID";
+    private static final String[] SELECT_BY_ID = inEachPartition(partition -> "SELECT " + COLUMNS + " FROM " + partition + " WHERE ID = ?");
+    private static final String SELECT_BY_IDS = "SELECT " + COLUMNS + " FROM course WHERE ID = ANY (?)"
+            + " AND ID % " + PARTITIONS + " = ANY (?)";
+    private static final String SELECT_PAGE_AFTER = "SELECT " + COLUMNS + " FROM course WHERE ID > ? ORDER BY ID LIMIT ?";
+    private static final String SELECT_CREATED_BETWEEN = "SELECT " + COLUMNS + " FROM course"
+            + " WHERE (CREATED_AT, ID) > (?, ?) AND CREATED_AT < ? ORDER BY CREATED_AT, ID LIMIT ?";
+    private static final String SELECT_EXISTING_NAMES = "SELECT NAME FROM course_name WHERE NAME = ANY (?)";
+    private static final String INSERT_NAME = "INSERT INTO course_name (NAME, COURSE_ID) VALUES (?, ?)";
+    private static final String INSERT = "INSERT INTO course (ID, NAME, DESCRIPTION, CREATED_AT)"
+            + " SELECT COURSE_ID, NAME, CAST(? AS VARCHAR), CAST(? AS TIMESTAMP) FROM named RETURNING " + COLUMNS;
+    private static final String INSERT_LOGGED =
+            logged(Operation.CREATED, "named AS (" + INSERT_NAME + " RETURNING NAME, COURSE_ID)", INSERT);
+    private static final String INSERT_IGNORING_DUPLICATES_LOGGED = logged(Operation.CREATED,
+            "named AS (" + INSERT_NAME + " ON CONFLICT DO NOTHING RETURNING NAME, COURSE_ID)", INSERT);
+    private static final String SEARCH_DOCUMENT =
+            "to_tsvector('english', COALESCE(NAME, '') || ' ' || COALESCE(DESCRIPTION, ''))";
+    private static final String SEARCH =
+            "SELECT " + COLUMNS + " FROM course, plainto_tsquery('english', ?) query"
+                    + " WHERE " + SEARCH_DOCUMENT + " @@ query"
+                    + " ORDER BY ts_rank(" + SEARCH_DOCUMENT + ", query) DESC, ID LIMIT ? OFFSET ?";
+    private static final String UPDATE_RETURNING = " RETURNING c.ID, c.NAME, c.DESCRIPTION, c.CREATED_AT, c.UPDATED_AT, c.VERSION";
+    // Renames in course_name and reads the previous name from there, so updates never join two partitions.
+    private static final String RENAMED = "renamed AS (UPDATE course_name n SET NAME = changed.NAME"
+            + " FROM changed, course_name previous WHERE n.COURSE_ID = changed.ID AND previous.COURSE_ID = changed.ID"
+            + " RETURNING n.COURSE_ID, previous.NAME AS PREVIOUS_NAME)";
+    private static final String SELECT_RENAMED = "SELECT changed.*, renamed.PREVIOUS_NAME"
+            + " FROM changed LEFT JOIN renamed ON renamed.COURSE_ID = changed.ID";
+    private static final String[] UPDATE_LOGGED = inEachPartition(partition ->
+            loggedReturning(Operation.UPDATED, update(partition) + UPDATE_RETURNING, RENAMED, SELECT_RENAMED));
+    private static final String[] UPDATE_IF_VERSION_LOGGED = inEachPartition(partition ->
+            loggedReturning(Operation.UPDATED, update(partition) + " AND c.VERSION = ?" + UPDATE_RETURNING, RENAMED, SELECT_RENAMED));
+    private static final String UPDATE_ALL_LOGGED = loggedReturning(Operation.UPDATED,
+            "UPDATE course c SET NAME = u.NAME, UPDATED_AT = u.UPDATED_AT, VERSION = c.VERSION + 1"
+                    + " FROM unnest(?::integer[], ?::text[], ?::timestamp[]) AS u(ID, NAME, UPDATED_AT)"
+                    + " WHERE c.ID = u.ID" + UPDATE_RETURNING, RENAMED, SELECT_RENAMED);
+    private static final String[] DELETE_LOGGED = inEachPartition(partition -> loggedReturning(Operation.DELETED,
+            "DELETE FROM " + partition + " WHERE ID = ? RETURNING " + COLUMNS,
+            "unnamed AS (DELETE FROM course_name n USING changed WHERE n.COURSE_ID = changed.ID)", "SELECT * FROM changed"));
+    private static final String[] COUNT_BY_ID = inEachPartition(partition -> "SELECT COUNT(*) FROM " + partition + " WHERE ID = ?");
+    // Key of the advisory lock that serializes sequenceChanges(), so SEQs become visible in the order they are taken.
+    private static final long SEQUENCE_LOCK_KEY = "course_change".hashCode();
+    // A CTE is evaluated in full before it is read, so nextval follows the order of WRITE_ID. Rows another call has
+    // numbered since this statement's snapshot fail the recheck of SEQ IS NULL and are skipped.
+    private static final String SEQUENCE_CHANGES =
+            "WITH sequence_lock AS (SELECT pg_advisory_xact_lock(" + SEQUENCE_LOCK_KEY + ")),"
+                    + " pending AS (SELECT WRITE_ID FROM course_change, sequence_lock WHERE SEQ IS NULL ORDER BY WRITE_ID LIMIT ?),"
+                    + " numbered AS (SELECT WRITE_ID, nextval('course_change_seq_seq') AS SEQ FROM pending)"
+                    + " UPDATE course_change c SET SEQ = numbered.SEQ FROM numbered"
+                    + " WHERE c.WRITE_ID = numbered.WRITE_ID AND c.SEQ IS NULL";
+    private static final String SELECT_CHANGES_SINCE =
+            "SELECT SEQ, OPERATION, COURSE_ID AS ID, NAME, DESCRIPTION, CREATED_AT, UPDATED_AT, VERSION, CHANGED_AT"
+                    + " FROM course_change WHERE SEQ > ? ORDER BY SEQ LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CourseIdSequence courseIdSequence;
+    private final RecentWrites recentWrites;
+    private final CourseRowMapper courseRowMapper = new CourseRowMapper();
+    private final int fetchSize;
+    private final int batchSize;
+
+    @Autowired
+    public CourseJdbcRepository(JdbcTemplate jdbcTemplate, CourseIdSequence courseIdSequence, RecentWrites recentWrites,
+                                @Value("${course.stream.fetch-size:500}") int fetchSize,
+                                @Value("${course.bulk.batch-size:100}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.courseIdSequence = courseIdSequence;
+        this.recentWrites = recentWrites;
+        this.fetchSize = fetchSize;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Hands every course to the consumer as it comes off a forward-only cursor. The PostgreSQL driver only
+     * honours the fetch size inside a transaction, so callers must not run this in auto-commit mode.
+     */
+    @Timed(value = "course.repository", histogram = true)
+    public void streamAll(Consumer<Course> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_ALL_ORDERED_BY_ID,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> consumer.accept(courseRowMapper.mapRow(resultSet, resultSet.getRow())));
+    }
+
+    @Timed(value = "course.repository", histogram = true)
+    @Transactional(readOnly = true)
+    public List<Course> findAll() {
+        return recentWrites.onPrimaryIf(recentWrites.isListPending(),
+                () -> jdbcTemplate.query(SELECT_ALL_ORDERED_BY_ID, courseRowMapper));
+    }
+
+    /**
+     * Whether a write within {@code course.datasource.replicas.max-lag} may not have been replayed by the replicas
+     * that serve pages.
+     */
+    public boolean isListPending() {
+        return recentWrites.isListPending();
+    }
+
+    @Timed(value = "course.repository", histogram = true)
+    @Transactional(readOnly = true)
+    public List<Course> findPageAfter(int after, int limit) {
+        return jdbcTemplate.query(SELECT_PAGE_AFTER, courseRowMapper, after, limit);
+    }
+
+    /**
+     * Returns courses created in {@code [from, to)} in creation order, starting after the course {@code afterId}
+     * when it was created at {@code from}. Each partition walks its (CREATED_AT, ID) index from that position.
+     */
+    @Timed(value = "course.repository", histogram = true)
+    @Transactional(readOnly = true)
+    public List<Course> findCreatedBetween(LocalDateTime from, LocalDateTime to, int afterId, int limit) {
+        return jdbcTemplate.query(SELECT_CREATED_BETWEEN, courseRowMapper, toTimestamp(from), afterId, toTimestamp(to), limit);
+    }
+
+    @Timed(value = "course.repository", histogram = true)
+    @Transactional(readOnly = true)
+    public Course findById(int id) {
+        List<Course> courses = recentWrites.onPrimaryIf(recentWrites.isPending(id),
+                () -> jdbcTemplate.query(SELECT_BY_ID[partitionOf(id)], courseRowMapper, id));
+        return courses.isEmpty() ? null : courses.get(0);
+    }
+
+    /**
+     * Looks the ids up with a single array parameter, so every batch size shares one prepared statement and
+     * query plan instead of one per IN list length. Partitions that hold none of the ids are skipped. Ids that
+     * do not exist are left out.
+     */
+    @Timed(value = "course.repository", histogram = true)
+    @Transactional(readOnly = true)
+    public List<Course> findAllById(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return recentWrites.onPrimaryIf(ids.stream().anyMatch(recentWrites::isPending), () -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_BY_IDS);
+            statement.setArray(1, connection.createArrayOf("integer", ids.toArray()));
+            statement.setArray(2, connection.createArrayOf("integer", ids.stream().map(CourseJdbcRepository::partitionOf).distinct().toArray()));
+            return statement;
+        }, courseRowMapper));
+    }
+
+    /**
+     * Inserts the course in a single statement and relies on the primary key of course_name to reject duplicates,
+     * which surface as {@link org.springframework.dao.DuplicateKeyException}.
+     */
+    @Timed(value = "course.repository", histogram = true)
+    public Course insert(Course course) {
+        int id = courseIdSequence.nextId();
+        jdbcTemplate.update(INSERT_LOGGED, course.getName(), id, course.getDescription(), toTimestamp(course.getCreatedAt()));
+        recentWrites.written(Collections.singletonList(id));
+        return new Course(id, course.getName(), course.getDescription(), course.getCreatedAt(), null, 0);
+    }
+
+    /**
+     * Matches the words of {@code query} against name and description, best ranked first. The document
+     * expression must stay identical to COURSE_SEARCH_IDX for the planner to use the GIN index.
+     */
+    @Timed(value = "course.repository", histogram = true)
+    public List<Course> search(String query, int offset, int limit) {
+        return jdbcTemplate.query(SEARCH, courseRowMapper, query, limit, offset);
+    }
+
+    /**
+     * Renames the course and bumps its version in one statement. When {@code expectedVersion} is given the row
+     * must still carry it, otherwise {@link OptimisticLockingFailureException} is thrown. Returns null if there
+     * is no course with that id.
+     */
+    @Timed(value = "course.repository", histogram = true)
+    public CourseUpdate update(int id, String name, LocalDateTime updatedAt, Integer expectedVersion) {
+        List<CourseUpdate> updates;
+        if (expectedVersion == null) {
+            updates = jdbcTemplate.query(UPDATE_LOGGED[partitionOf(id)], this::mapUpdate, name, toTimestamp(updatedAt), id);
+        } else {
+            updates = jdbcTemplate.query(UPDATE_IF_VERSION_LOGGED[partitionOf(id)], this::mapUpdate,
+                    name, toTimestamp(updatedAt), id, expectedVersion);
+            if (updates.isEmpty() && exists(id)) {
+                throw new OptimisticLockingFailureException("Course with id=" + id + " is no longer at version " + expectedVersion);
+            }
+        }
+        recentWrites.written(Collections.singletonList(id));
+        return updates.isEmpty() ? null : updates.get(0);
+    }
+
+    /**
+     * Renames many courses in statements of {@code course.bulk.batch-size} within one transaction, each passing
+     * the ids, names and update times as arrays. Versions are not checked, and ids that do not exist are left out
+     * of the result. A name already taken fails the whole call with {@link org.springframework.dao.DuplicateKeyException}.
+     */
+    @Timed(value = "course.repository", histogram = true)
+    @Transactional
+    public List<CourseUpdate> updateAll(List<Course> courses) {
+        List<CourseUpdate> updates = new ArrayList<>(courses.size());
+        for (int from = 0; from < courses.size(); from += batchSize) {
+            List<Course> batch = courses.subList(from, Math.min(from + batchSize, courses.size()));
+            Object[] ids = new Object[batch.size()];
+            Object[] names = new Object[batch.size()];
+            Object[] updatedAts = new Object[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                ids[i] = batch.get(i).getId();
+                names[i] = batch.get(i).getName();
+                updatedAts[i] = toTimestamp(batch.get(i).getUpdatedAt());
+            }
+            updates.addAll(jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(UPDATE_ALL_LOGGED);
+                statement.setArray(1, connection.createArrayOf("integer", ids));
+                statement.setArray(2, connection.createArrayOf("text", names));
+                statement.setArray(3, connection.createArrayOf("timestamp", updatedAts));
+                return statement;
+            }, this::mapUpdate));
+        }
+        recentWrites.written(courses.stream().map(Course::getId).collect(Collectors.toList()));
+        return updates;
+    }
+
+    @Timed(value = "course.repository", histogram = true)
+    public Course delete(int id) {
+        List<Course> deleted = jdbcTemplate.query(DELETE_LOGGED[partitionOf(id)], courseRowMapper, id);
+        recentWrites.written(Collections.singletonList(id));
+        return deleted.isEmpty() ? null : deleted.get(0);
+    }
+
+    /**
+     * Numbers the committed changes that have no SEQ yet, oldest write first, in batches of {@code batchSize}.
+     * Must run outside a transaction, or the numbers stay invisible to readers until that transaction commits.
+     */
+    @Timed(value = "course.repository", histogram = true)
+    public void sequenceChanges() {
+        int sequenced;
+        do {
+            sequenced = jdbcTemplate.update(SEQUENCE_CHANGES, batchSize);
+        } while (sequenced == batchSize);
+    }
+
+    @Timed(value = "course.repository", histogram = true)
+    public List<CourseChange> findChangesSince(long seq, int limit) {
+        return jdbcTemplate.query(SELECT_CHANGES_SINCE, (resultSet, rowNum) -> new CourseChange(
+                resultSet.getLong("SEQ"),
+                Operation.valueOf(resultSet.getString("OPERATION")),
+                courseRowMapper.mapRow(resultSet, rowNum),
+                resultSet.getObject("CHANGED_AT", LocalDateTime.class)), seq, limit);
+    }
+
+    private boolean exists(int id) {
+        return jdbcTemplate.queryForObject(COUNT_BY_ID[partitionOf(id)], Integer.class, id) > 0;
+    }
+
+    private CourseUpdate mapUpdate(ResultSet resultSet, int rowNum) throws SQLException {
+        return new CourseUpdate(courseRowMapper.mapRow(resultSet, rowNum), resultSet.getString("PREVIOUS_NAME"));
+    }
+
+    /**
+     * Passes the names as one text array, like {@link #findAllById}, so every batch size shares one prepared
+     * statement.
+     */
+    @Timed(value = "course.repository", histogram = true)
+    public List<String> findExistingNames(Collection<String> names) {
+        if (names.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_EXISTING_NAMES);
+            statement.setArray(1, connection.createArrayOf("text", names.toArray()));
+            return statement;
+        }, (resultSet, rowNum) -> resultSet.getString(1));
+    }
+
+    /**
+     * Inserts the courses in JDBC batches of {@code course.bulk.batch-size} within one transaction. Rows that
+     * collide with an existing name are skipped and report an update count of 0.
+     */
+    @Timed(value = "course.repository", histogram = true)
+    @Transactional
+    public int[] insertAll(List<Course> courses) {
+        int[][] batches = jdbcTemplate.batchUpdate(INSERT_IGNORING_DUPLICATES_LOGGED, courses, batchSize, (statement, course) -> {
+            statement.setString(1, course.getName());
+            statement.setInt(2, courseIdSequence.nextId());
+            statement.setString(3, course.getDescription());
+            statement.setTimestamp(4, toTimestamp(course.getCreatedAt()));
+        });
+        int[] updateCounts = new int[courses.size()];
+        int index = 0;
+        for (int[] batch : batches) {
+            System.arraycopy(batch, 0, updateCounts, index, batch.length);
+            index += batch.length;
+        }
+        // The new ids are not cached anywhere yet, only the list is.
+        recentWrites.written(Collections.emptyList());
+        return updateCounts;
+    }
+
+    /**
+     * Wraps a data-modifying statement that returns the affected course rows so the same statement also appends
+     * them to course_change. {@code names} is the course_name change the statement goes with; everything is
+     * committed or rolled back together with the write itself.
+     */
+    private static String logged(Operation operation, String names, String statement) {
+        return "WITH " + names + ", changed AS (" + statement + ") " + logChange(operation);
+    }
+
+    private static String loggedReturning(Operation operation, String statement, String names, String select) {
+        return "WITH changed AS (" + statement + "), " + names + ", logged AS (" + logChange(operation) + ") " + select;
+    }
+
+    private static String logChange(Operation operation) {
+        return "INSERT INTO course_change (COURSE_ID, OPERATION, NAME, DESCRIPTION, CREATED_AT, UPDATED_AT, VERSION, CHANGED_AT)"
+                + " SELECT ID, '" + operation + "', NAME, DESCRIPTION, CREATED_AT, UPDATED_AT, VERSION, LOCALTIMESTAMP FROM changed";
+    }
+
+    private static String update(String partition) {
+        return "UPDATE " + partition + " c SET NAME = ?, UPDATED_AT = ?, VERSION = c.VERSION + 1 WHERE ID = ?";
+    }
+
+    private static String[] inEachPartition(Function<String, String> statement) {
+        String[] statements = new String[PARTITIONS];
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            statements[partition] = statement.apply("course_p" + partition);
+        }
+        return statements;
+    }
+
+    // Negative ids have no partition; floorMod still picks one, where they are simply not found.
+    private static int partitionOf(int id) {
+        return Math.floorMod(id, PARTITIONS);
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime dateTime) {
+        return dateTime == null ? null : Timestamp.valueOf(dateTime);
+    }
+}
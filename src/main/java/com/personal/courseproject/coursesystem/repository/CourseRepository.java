@@ -1,14 +1,18 @@
 package com.personal.courseproject.coursesystem.repository;
 
 import com.personal.courseproject.coursesystem.Course;
-import org.springframework.data.repository.CrudRepository;
-import org.springframework.stereotype.Repository;
+import org.springframework.data.repository.Repository;
 
 import java.util.Optional;
 
-@Repository
-public interface CourseRepository extends CrudRepository<Course, Integer> {
+/**
+ * Read-only JPA view of the courses, kept for comparison with {@link CourseJdbcRepository}. Writes must go through
+ * the JDBC repository, which routes them to the right partition and keeps course_name and course_change in step.
+ */
+public interface CourseRepository extends Repository<Course, Integer> {
     Optional<Course> findById(Integer id);
 
+    Iterable<Course> findAllById(Iterable<Integer> ids);
+
     Optional<Course> findByName(String name);
 }
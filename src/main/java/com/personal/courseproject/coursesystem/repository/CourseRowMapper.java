@@ -0,0 +1,22 @@
+package com.personal.courseproject.coursesystem.repository;
+
+import com.personal.courseproject.coursesystem.Course;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+public class CourseRowMapper implements RowMapper<Course> {
+
+    @Override
+    public Course mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        return new Course(
+                resultSet.getInt("ID"),
+                resultSet.getString("NAME"),
+                resultSet.getString("DESCRIPTION"),
+                resultSet.getObject("CREATED_AT", LocalDateTime.class),
+                resultSet.getObject("UPDATED_AT", LocalDateTime.class),
+                resultSet.getInt("VERSION"));
+    }
+}
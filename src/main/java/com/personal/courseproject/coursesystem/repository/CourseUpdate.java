@@ -0,0 +1,21 @@
+package com.personal.courseproject.coursesystem.repository;
+
+import com.personal.courseproject.coursesystem.Course;
+
+public class CourseUpdate {
+    private final Course course;
+    private final String previousName;
+
+    public CourseUpdate(Course course, String previousName) {
+        this.course = course;
+        this.previousName = previousName;
+    }
+
+    public Course getCourse() {
+        return course;
+    }
+
+    public String getPreviousName() {
+        return previousName;
+    }
+}
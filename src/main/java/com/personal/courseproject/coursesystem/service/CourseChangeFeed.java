@@ -0,0 +1,127 @@
+package com.personal.courseproject.coursesystem.service;
+
+import com.personal.courseproject.coursesystem.CourseChange;
+import com.personal.courseproject.coursesystem.repository.CourseJdbcRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Hands out course changes to long-polling readers. Waiting readers are parked here instead of polling the
+ * database; each write wakes a single dispatcher thread that numbers the committed changes and then reads the
+ * change log once for all of them.
+ */
+@Component
+public class CourseChangeFeed {
+    private static final int MAX_DISPATCH_SIZE = 1000;
+
+    private final CourseJdbcRepository courseJdbcRepository;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dispatchPending = new AtomicBoolean();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "course-change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public CourseChangeFeed(CourseJdbcRepository courseJdbcRepository) {
+        this.courseJdbcRepository = courseJdbcRepository;
+    }
+
+    public List<CourseChange> getChanges(long since, int limit) {
+        courseJdbcRepository.sequenceChanges();
+        return courseJdbcRepository.findChangesSince(since, limit);
+    }
+
+    /**
+     * Calls {@code consumer} once with up to {@code limit} changes after {@code since}, as soon as there are any.
+     * Running the returned handle cancels the subscription.
+     */
+    public Runnable subscribe(long since, int limit, Consumer<List<CourseChange>> consumer) {
+        Subscription subscription = new Subscription(since, Math.min(limit, MAX_DISPATCH_SIZE), consumer);
+        subscriptions.add(subscription);
+        changed();
+        return () -> subscriptions.remove(subscription);
+    }
+
+    /**
+     * Called after a write has committed, here or on another instance. Its changes only get their SEQ from the
+     * dispatcher, so it runs even when nobody is waiting.
+     */
+    public void changed() {
+        if (dispatchPending.compareAndSet(false, true)) {
+            dispatcher.execute(this::dispatch);
+        }
+    }
+
+    /**
+     * Reads from the oldest cursor and serves every subscription the read covers. A full read may end before the
+     * cursor of another subscription, so reading continues after it until no unserved subscription is left behind.
+     */
+    private void dispatch() {
+        dispatchPending.set(false);
+        courseJdbcRepository.sequenceChanges();
+        long covered = -1;
+        while (true) {
+            long since = Long.MAX_VALUE;
+            for (Subscription subscription : subscriptions) {
+                if (subscription.since >= covered) {
+                    since = Math.min(since, subscription.since);
+                }
+            }
+            if (since == Long.MAX_VALUE) {
+                return;
+            }
+            List<CourseChange> changes = courseJdbcRepository.findChangesSince(since, MAX_DISPATCH_SIZE);
+            if (changes.isEmpty()) {
+                return;
+            }
+            serve(changes);
+            if (changes.size() < MAX_DISPATCH_SIZE) {
+                return;
+            }
+            covered = changes.get(changes.size() - 1).getSeq();
+        }
+    }
+
+    private void serve(List<CourseChange> changes) {
+        for (Subscription subscription : subscriptions) {
+            List<CourseChange> pending = new ArrayList<>();
+            for (CourseChange change : changes) {
+                if (change.getSeq() > subscription.since && pending.size() < subscription.limit) {
+                    pending.add(change);
+                }
+            }
+            if (!pending.isEmpty() && subscriptions.remove(subscription)) {
+                subscription.consumer.accept(pending);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    private static final class Subscription {
+        private final long since;
+        private final int limit;
+        private final Consumer<List<CourseChange>> consumer;
+
+        private Subscription(long since, int limit, Consumer<List<CourseChange>> consumer) {
+            this.since = since;
+            this.limit = limit;
+            this.consumer = consumer;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.personal.courseproject.coursesystem.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.http.HttpStatus;
+
+import java.util.Objects;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CourseImportResult {
+    @JsonProperty
+    private String name;
+
+    @JsonProperty
+    private int status;
+
+    @JsonProperty
+    private String error;
+
+    public CourseImportResult(String name, HttpStatus status, String error) {
+        this.name = name;
+        this.status = status.value();
+        this.error = error;
+    }
+
+    public static CourseImportResult created(String name) {
+        return new CourseImportResult(name, HttpStatus.CREATED, null);
+    }
+
+    public static CourseImportResult rejected(String name, String error) {
+        return new CourseImportResult(name, HttpStatus.BAD_REQUEST, error);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CourseImportResult)) return false;
+        CourseImportResult that = (CourseImportResult) o;
+        return status == that.status && Objects.equals(name, that.name) && Objects.equals(error, that.error);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, status, error);
+    }
+
+    @Override
+    public String toString() {
+        return "CourseImportResult{" +
+                "name='" + name + '\'' +
+                ", status=" + status +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,76 @@
+package com.personal.courseproject.coursesystem.service;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Counts the outcome of a catalog import and keeps only the first {@code maxRejections} rejections, so its size
+ * does not grow with the number of imported rows.
+ */
+public class CourseImportSummary implements Consumer<CourseImportResult> {
+    @JsonProperty
+    private long created;
+
+    @JsonProperty
+    private long rejected;
+
+    @JsonProperty
+    private final List<CourseImportResult> rejections = new ArrayList<>();
+
+    private final int maxRejections;
+
+    public CourseImportSummary(int maxRejections) {
+        this.maxRejections = maxRejections;
+    }
+
+    @Override
+    public void accept(CourseImportResult result) {
+        if (result.getStatus() == HttpStatus.CREATED.value()) {
+            created++;
+            return;
+        }
+        rejected++;
+        if (rejections.size() < maxRejections) {
+            rejections.add(result);
+        }
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<CourseImportResult> getRejections() {
+        return rejections;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CourseImportSummary)) return false;
+        CourseImportSummary that = (CourseImportSummary) o;
+        return created == that.created && rejected == that.rejected && Objects.equals(rejections, that.rejections);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(created, rejected, rejections);
+    }
+
+    @Override
+    public String toString() {
+        return "CourseImportSummary{" +
+                "created=" + created +
+                ", rejected=" + rejected +
+                ", rejections=" + rejections +
+                '}';
+    }
+}
@@ -1,72 +1,399 @@
 package com.personal.courseproject.coursesystem.service;
 
 import com.personal.courseproject.coursesystem.Course;
-import com.personal.courseproject.coursesystem.repository.CourseRepository;
+import com.personal.courseproject.coursesystem.CourseChange;
+import com.personal.courseproject.coursesystem.CourseFormat;
+import com.personal.courseproject.coursesystem.cache.CourseCache;
+import com.personal.courseproject.coursesystem.cache.CourseCacheStats;
+import com.personal.courseproject.coursesystem.cache.CourseJsonCache;
+import com.personal.courseproject.coursesystem.cache.CourseListSnapshot;
+import com.personal.courseproject.coursesystem.exceptions.DuplicateCourseTitleException;
+import com.personal.courseproject.coursesystem.invalidation.CourseInvalidation;
+import com.personal.courseproject.coursesystem.invalidation.CourseInvalidationBus;
+import com.personal.courseproject.coursesystem.repository.CourseJdbcRepository;
+import com.personal.courseproject.coursesystem.repository.CourseUpdate;
+import com.personal.courseproject.coursesystem.writebehind.CourseWriteBehind;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.text.SimpleDateFormat;
+import java.time.Clock;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Service
 public class CourseManagementService {
-    private final CourseRepository courseRepository;
+    private static final Logger log = LoggerFactory.getLogger(CourseManagementService.class);
+
+    private final CourseJdbcRepository courseJdbcRepository;
+    private final CourseCache courseCache;
+    private final CourseJsonCache courseJsonCache;
+    private final CourseChangeFeed courseChangeFeed;
+    private final CourseInvalidationBus courseInvalidationBus;
+    private final CourseWriteBehind courseWriteBehind;
+    private final Clock clock;
+    private final int importChunkSize;
+    private final long catalogEpoch;
+    private final AtomicLong catalogVersion = new AtomicLong();
 
     @Autowired
-    public CourseManagementService(CourseRepository courseRepository) {
-        this.courseRepository = courseRepository;
+    public CourseManagementService(CourseJdbcRepository courseJdbcRepository, CourseCache courseCache,
+                                   CourseJsonCache courseJsonCache, CourseChangeFeed courseChangeFeed,
+                                   CourseInvalidationBus courseInvalidationBus, @Nullable CourseWriteBehind courseWriteBehind, Clock clock,
+                                   @Value("${course.bulk.chunk-size:1000}") int importChunkSize) {
+        this.courseJdbcRepository = courseJdbcRepository;
+        this.courseCache = courseCache;
+        this.courseJsonCache = courseJsonCache;
+        this.courseChangeFeed = courseChangeFeed;
+        this.courseInvalidationBus = courseInvalidationBus;
+        this.courseWriteBehind = courseWriteBehind;
+        this.clock = clock;
+        this.importChunkSize = importChunkSize;
+        this.catalogEpoch = clock.millis();
+        if (courseWriteBehind != null) {
+            courseWriteBehind.setWriter(this::writeQueuedUpdates);
+        }
+        courseInvalidationBus.subscribe(this::invalidated);
+    }
+
+    /**
+     * Identifies the current state of the whole catalog without touching the database. It changes with every
+     * successful write made through this instance and with every write another instance publishes to the
+     * {@link CourseInvalidationBus}, so a client holding the same value has an up-to-date list.
+     */
+    public String getCatalogVersion() {
+        return Long.toHexString(catalogEpoch) + "-" + catalogVersion.get();
+    }
+
+    /**
+     * Whether a recent write may not have reached the replicas yet, so a page read from one can be older than
+     * {@link #getCatalogVersion}.
+     */
+    public boolean isCatalogPending() {
+        return courseJdbcRepository.isListPending();
+    }
+
+    @Timed(value = "course.service", histogram = true)
+    public List<CourseChange> getChanges(long since, int limit) {
+        return courseChangeFeed.getChanges(since, limit);
+    }
+
+    /**
+     * Waits for changes after {@code since} without holding a thread. See {@link CourseChangeFeed#subscribe}.
+     */
+    public Runnable subscribeToChanges(long since, int limit, Consumer<List<CourseChange>> consumer) {
+        return courseChangeFeed.subscribe(since, limit, consumer);
     }
 
+    @Timed(value = "course.service", histogram = true)
     public List<Course> getCourses() {
-        List<Course> courses = new ArrayList<>();
-        courseRepository.findAll().forEach(courses::add);
-        return courses;
+        return courseJdbcRepository.findAll();
     }
 
+    /**
+     * Returns the full list already serialized in {@code format}, loading and serializing it only when the catalog
+     * changed since the last call for that format.
+     */
+    @Timed(value = "course.service", histogram = true)
+    public CourseListSnapshot getCourseListSnapshot(CourseFormat format) {
+        return courseJsonCache.getList(getCatalogVersion(), format, this::getCourses);
+    }
+
+    @Timed(value = "course.service", histogram = true)
+    public List<Course> getCourses(Integer after, int limit) {
+        return courseJdbcRepository.findPageAfter(after == null ? 0 : after, limit);
+    }
+
+    @Timed(value = "course.service", histogram = true)
+    public List<Course> getCoursesCreatedBetween(LocalDateTime from, LocalDateTime to, Integer after, int limit) {
+        return courseJdbcRepository.findCreatedBetween(from, to, after == null ? 0 : after, limit);
+    }
+
+    @Timed(value = "course.service", histogram = true)
+    public List<Course> searchCourses(String query, int offset, int limit) {
+        return courseJdbcRepository.search(query, offset, limit);
+    }
+
+    @Timed(value = "course.service", histogram = true)
+    @Transactional(readOnly = true)
+    public void streamCourses(Consumer<Course> consumer) {
+        courseJdbcRepository.streamAll(consumer);
+    }
+
+    @Timed(value = "course.service", histogram = true)
     public Course getCoursesById(Integer id) {
-        Optional<Course> course = courseRepository.findById(id);
-        return course.orElse(null);
+        return courseCache.getById(id, courseJdbcRepository::findById);
+    }
+
+    public byte[] getCourseBody(Course course, CourseFormat format) {
+        return courseJsonCache.getCourse(course, format);
     }
 
+    /**
+     * Resolves the ids in request order, with null for ids that do not exist. Cache misses are fetched together
+     * in one query.
+     */
+    @Timed(value = "course.service", histogram = true)
+    public List<Course> getCoursesByIds(List<Integer> ids) {
+        Map<Integer, Course> courses = courseCache.getAllById(ids, missingIds -> {
+            Map<Integer, Course> loadedCourses = new HashMap<>();
+            List<Integer> idsToLoad = new ArrayList<>();
+            missingIds.forEach(idsToLoad::add);
+            courseJdbcRepository.findAllById(idsToLoad).forEach(course -> loadedCourses.put(course.getId(), course));
+            return loadedCourses;
+        });
+        List<Course> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            result.add(courses.get(id));
+        }
+        return result;
+    }
+
+    @Timed(value = "course.service", histogram = true)
     public Course addCourses(Course course) {
-        Optional<Course> optionalCourse = courseRepository.findByName(course.getName());
-        if (optionalCourse.isPresent()) {
+        if (courseCache.getIfPresent(course.getName()) != null) {
+            return null;
+        }
+        course.setCreatedAt(now());
+        try {
+            Course addedCourse = courseCache.put(courseJdbcRepository.insert(course));
+            changed(CourseInvalidation.list());
+            return addedCourse;
+        } catch (DuplicateKeyException e) {
             return null;
         }
-        course.setCreatedAt(LocalDateTime.parse(getFormattedDate()));
-        return courseRepository.save(course);
     }
 
-    protected String getFormattedDate() {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-        Calendar calendar = Calendar.getInstance();
-        return dateFormat.format(calendar.getTime());
+    @Timed(value = "course.service", histogram = true)
+    public List<CourseImportResult> importCourses(Iterator<Course> courses) {
+        List<CourseImportResult> results = new ArrayList<>();
+        importChunks(courses, results::add);
+        return results;
     }
 
-    public Course updateCourses(Integer id, Course updatedCourse) {
-        Optional<Course> optionalCourse = courseRepository.findById(id);
-        if (optionalCourse.isPresent()) {
-            Course existingCourse = optionalCourse.get();
-            existingCourse.setName(updatedCourse.getName());
-            existingCourse.setUpdatedAt(LocalDateTime.parse(getFormattedDate()));
-            return courseRepository.save(existingCourse);
+    /**
+     * Imports courses in chunks of {@code course.bulk.chunk-size} and hands each result to {@code results} once
+     * its chunk is written, so only one chunk is held in memory however long {@code courses} is.
+     */
+    @Timed(value = "course.service", histogram = true)
+    public void importCourses(Iterator<Course> courses, Consumer<CourseImportResult> results) {
+        importChunks(courses, results);
+    }
+
+    private void importChunks(Iterator<Course> courses, Consumer<CourseImportResult> results) {
+        List<Course> chunk = new ArrayList<>(importChunkSize);
+        while (courses.hasNext()) {
+            chunk.add(courses.next());
+            if (chunk.size() == importChunkSize) {
+                importChunk(chunk).forEach(results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk).forEach(results);
+        }
+    }
+
+    private List<CourseImportResult> importChunk(List<Course> chunk) {
+        Set<String> names = new HashSet<>();
+        for (Course course : chunk) {
+            if (course.getName() != null) {
+                names.add(course.getName());
+            }
+        }
+        Set<String> takenNames = new HashSet<>(courseJdbcRepository.findExistingNames(names));
+        LocalDateTime createdAt = now();
+        List<CourseImportResult> results = new ArrayList<>(chunk.size());
+        List<Course> coursesToInsert = new ArrayList<>();
+        List<Integer> resultIndexes = new ArrayList<>();
+        for (Course course : chunk) {
+            if (course.getName() == null) {
+                results.add(CourseImportResult.rejected(null, "Course title is required"));
+            } else if (course.getDescription() == null) {
+                results.add(CourseImportResult.rejected(course.getName(), "Course description is required"));
+            } else if (!takenNames.add(course.getName())) {
+                results.add(alreadyExists(course.getName()));
+            } else {
+                course.setCreatedAt(createdAt);
+                coursesToInsert.add(course);
+                resultIndexes.add(results.size());
+                results.add(CourseImportResult.created(course.getName()));
+            }
+        }
+        if (coursesToInsert.isEmpty()) {
+            return results;
+        }
+        int[] updateCounts = courseJdbcRepository.insertAll(coursesToInsert);
+        changed(CourseInvalidation.list());
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0) {
+                results.set(resultIndexes.get(i), alreadyExists(coursesToInsert.get(i).getName()));
+            }
+        }
+        return results;
+    }
+
+    private CourseImportResult alreadyExists(String name) {
+        return CourseImportResult.rejected(name, "Course with title " + name + " already exists");
+    }
+
+    private void changed(CourseInvalidation invalidation) {
+        listChanged();
+        courseInvalidationBus.publish(invalidation);
+    }
+
+    /**
+     * Applies a write made through another instance to the caches of this one.
+     */
+    private void invalidated(CourseInvalidation invalidation) {
+        if (invalidation.isEverything()) {
+            courseCache.evictAll();
         } else {
+            invalidation.getCourses().forEach((id, name) -> courseCache.evict(new Course(id, name, null, null, null)));
+        }
+        listChanged();
+    }
+
+    private void listChanged() {
+        catalogVersion.incrementAndGet();
+        courseJsonCache.evictList();
+        courseChangeFeed.changed();
+    }
+
+    public CourseCacheStats getCacheStats() {
+        return courseCache.stats();
+    }
+
+    protected LocalDateTime now() {
+        return LocalDateTime.now(clock).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * Returns null if there is no course with that id.
+     *
+     * @throws DuplicateCourseTitleException if another course already has the new name
+     */
+    @Timed(value = "course.service", histogram = true)
+    public Course updateCourses(Integer id, Course updatedCourse) {
+        if (courseWriteBehind != null) {
+            courseWriteBehind.flush(id);
+        }
+        CourseUpdate update;
+        try {
+            update = courseJdbcRepository.update(id, updatedCourse.getName(), now(), updatedCourse.getVersion());
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateCourseTitleException(updatedCourse.getName());
+        }
+        if (update == null) {
             return null;
         }
+        courseCache.evict(new Course(id, update.getPreviousName(), null, null, null));
+        changed(CourseInvalidation.course(id, update.getPreviousName()));
+        return courseCache.put(update.getCourse());
     }
 
+    @Timed(value = "course.service", histogram = true)
     public boolean deleteCourses(Integer id) {
-        Optional<Course> optionalCourse = courseRepository.findById(id);
-        if (optionalCourse.isPresent()) {
-            Course existingCourse = optionalCourse.get();
-            courseRepository.delete(existingCourse);
-            return true;
+        if (courseWriteBehind != null) {
+            courseWriteBehind.flush(id);
+        }
+        Course deletedCourse = courseJdbcRepository.delete(id);
+        if (deletedCourse == null) {
+            return false;
         }
-        return false;
+        courseCache.evict(deletedCourse);
+        changed(CourseInvalidation.course(id, deletedCourse.getName()));
+        return true;
+    }
+
+    public boolean isWritingBehind() {
+        return courseWriteBehind != null;
+    }
+
+    /**
+     * Acknowledges the rename once it is journaled and leaves writing it to {@link CourseWriteBehind}, so reads see
+     * it after the next flush. Returns the course as it will read then, without a version, or null if there is no
+     * course with that id.
+     *
+     * @throws DuplicateCourseTitleException if another course already has the new name
+     * @throws java.util.concurrent.RejectedExecutionException if too many updates are waiting to be written
+     */
+    @Timed(value = "course.service", histogram = true)
+    public Course queueCourseUpdate(Integer id, Course updatedCourse) {
+        Course course = getCoursesById(id);
+        if (course == null) {
+            return null;
+        }
+        if (!updatedCourse.getName().equals(course.getName()) && isTaken(updatedCourse.getName())) {
+            throw new DuplicateCourseTitleException(updatedCourse.getName());
+        }
+        Course update = new Course(id, updatedCourse.getName(), course.getDescription(), course.getCreatedAt(), now(), null);
+        courseWriteBehind.submit(update);
+        return update;
+    }
+
+    private boolean isTaken(String name) {
+        return courseCache.getIfPresent(name) != null
+                || !courseJdbcRepository.findExistingNames(Collections.singletonList(name)).isEmpty();
     }
-}
 
+    /**
+     * Writes a flush of queued renames together. If one of them can no longer be applied, for example because its
+     * name was taken in the meantime, they are retried one by one and only the failing ones are dropped. Each
+     * dropped rename is logged, and counted by {@link CourseWriteBehind}.
+     */
+    private int writeQueuedUpdates(List<Course> updates) {
+        List<CourseUpdate> applied;
+        Map<Integer, String> rejections = new HashMap<>();
+        try {
+            applied = courseJdbcRepository.updateAll(updates);
+        } catch (DataIntegrityViolationException e) {
+            applied = new ArrayList<>(updates.size());
+            for (Course update : updates) {
+                try {
+                    CourseUpdate courseUpdate = courseJdbcRepository.update(update.getId(), update.getName(), update.getUpdatedAt(), null);
+                    if (courseUpdate != null) {
+                        applied.add(courseUpdate);
+                    }
+                } catch (DuplicateKeyException rejected) {
+                    rejections.put(update.getId(), "the title is taken");
+                } catch (DataIntegrityViolationException rejected) {
+                    rejections.put(update.getId(), rejected.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        Map<Integer, String> previousNames = new HashMap<>();
+        for (CourseUpdate update : applied) {
+            courseCache.evict(new Course(update.getCourse().getId(), update.getPreviousName(), null, null, null));
+            courseCache.put(update.getCourse());
+            previousNames.put(update.getCourse().getId(), update.getPreviousName());
+        }
+        if (!applied.isEmpty()) {
+            changed(CourseInvalidation.courses(previousNames));
+        }
+        for (Course update : updates) {
+            if (!previousNames.containsKey(update.getId())) {
+                log.warn("Dropped queued rename of course {} to {}: {}", update.getId(), update.getName(),
+                        rejections.getOrDefault(update.getId(), "the course no longer exists"));
+            }
+        }
+        return applied.size();
+    }
+}
@@ -0,0 +1,58 @@
+package com.personal.courseproject.coursesystem.throttle;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the requests in flight with additive-increase/multiplicative-decrease: a request slower than the latency
+ * target shrinks the limit by 10%, every fast one grows it by one up to {@code maxLimit}, so it also recovers
+ * under light load. Requests are shed as soon as queueing starts to show in latency rather than once the
+ * connection pool is exhausted. A target of zero keeps the limit fixed at {@code maxLimit}.
+ */
+final class AdaptiveConcurrencyLimit {
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    AdaptiveConcurrencyLimit(int minLimit, int maxLimit, long latencyTargetNanos) {
+        this.minLimit = Math.min(minLimit, maxLimit);
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.limit = new AtomicInteger(maxLimit);
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+        if (latencyTargetNanos <= 0) {
+            return;
+        }
+        if (latencyNanos > latencyTargetNanos) {
+            limit.updateAndGet(value -> Math.max(minLimit, (int) (value * BACKOFF_RATIO)));
+        } else {
+            limit.updateAndGet(value -> Math.min(maxLimit, value + 1));
+        }
+    }
+
+    int getLimit() {
+        return limit.get();
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
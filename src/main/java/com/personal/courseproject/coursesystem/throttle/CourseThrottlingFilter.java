@@ -0,0 +1,232 @@
+package com.personal.courseproject.coursesystem.throttle;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.personal.courseproject.coursesystem.exceptions.ErrorResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Guards the course API in two steps. Each client gets its own token bucket and is answered with 429 once it is
+ * used up. Requests that pass then need a slot in the adaptive concurrency limit of their endpoint class and are
+ * shed with 503 when there is none, so one expensive kind of request cannot starve the others of connections.
+ * <p>
+ * A client is the authenticated principal, or else the remote address. Behind a proxy, set
+ * {@code server.forward-headers-strategy} so the remote address is the caller's; {@code
+ * course.throttle.trusted-client-header} names a header to key on instead, and must only be set when the proxy
+ * overwrites that header, as any caller could otherwise pick a fresh bucket per request.
+ * <p>
+ * The filter is off unless {@code course.throttle.enabled} is set, since keyed on the address of a proxy every
+ * caller would share one bucket.
+ */
+@Component
+@ConditionalOnProperty(name = "course.throttle.enabled", havingValue = "true")
+public class CourseThrottlingFilter extends OncePerRequestFilter implements MeterBinder {
+    private static final String API_PATH = "/api/courses";
+    private static final String CHANGES_PATH = "/api/courses/changes";
+    private static final Pattern SINGLE_COURSE_PATH = Pattern.compile("/api/courses/(\\d+|cache/stats)");
+    private static final Pattern STREAM_PATH = Pattern.compile("/api/courses/(stream|export)");
+    private static final Pattern BULK_PATH = Pattern.compile("/api/courses/(bulk|import)");
+
+    /**
+     * {@code STREAM} takes as long as the course table is large and {@code BULK} as long as the upload, so their
+     * limits are fixed rather than adapted to latency.
+     */
+    enum EndpointClass {
+        LIST, GET, WRITE, STREAM, BULK
+    }
+
+    private final ObjectMapper objectMapper;
+    private final String trustedClientHeader;
+    private final double requestsPerSecond;
+    private final int burst;
+    private final long retryAfterSeconds;
+    private final Cache<String, TokenBucket> buckets;
+    private final Map<EndpointClass, AdaptiveConcurrencyLimit> limits = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, LongAdder> rateLimited = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, LongAdder> shed = new EnumMap<>(EndpointClass.class);
+
+    @Autowired
+    public CourseThrottlingFilter(ObjectMapper objectMapper,
+                                  @Value("${course.throttle.trusted-client-header:}") String trustedClientHeader,
+                                  @Value("${course.throttle.requests-per-second:100}") double requestsPerSecond,
+                                  @Value("${course.throttle.burst:200}") int burst,
+                                  @Value("${course.throttle.max-clients:100000}") long maxClients,
+                                  @Value("${course.throttle.retry-after:PT1S}") Duration retryAfter,
+                                  @Value("${course.throttle.concurrency.min:1}") int minConcurrency,
+                                  @Value("${course.throttle.concurrency.list:8}") int listConcurrency,
+                                  @Value("${course.throttle.concurrency.get:32}") int getConcurrency,
+                                  @Value("${course.throttle.concurrency.write:8}") int writeConcurrency,
+                                  @Value("${course.throttle.concurrency.stream:2}") int streamConcurrency,
+                                  @Value("${course.throttle.concurrency.bulk:2}") int bulkConcurrency,
+                                  @Value("${course.throttle.latency-target.list:PT0.5S}") Duration listLatencyTarget,
+                                  @Value("${course.throttle.latency-target.get:PT0.1S}") Duration getLatencyTarget,
+                                  @Value("${course.throttle.latency-target.write:PT0.25S}") Duration writeLatencyTarget) {
+        this.objectMapper = objectMapper;
+        this.trustedClientHeader = trustedClientHeader;
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        limits.put(EndpointClass.LIST, new AdaptiveConcurrencyLimit(minConcurrency, listConcurrency, listLatencyTarget.toNanos()));
+        limits.put(EndpointClass.GET, new AdaptiveConcurrencyLimit(minConcurrency, getConcurrency, getLatencyTarget.toNanos()));
+        limits.put(EndpointClass.WRITE, new AdaptiveConcurrencyLimit(minConcurrency, writeConcurrency, writeLatencyTarget.toNanos()));
+        limits.put(EndpointClass.STREAM, new AdaptiveConcurrencyLimit(streamConcurrency, streamConcurrency, 0));
+        limits.put(EndpointClass.BULK, new AdaptiveConcurrencyLimit(bulkConcurrency, bulkConcurrency, 0));
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            rateLimited.put(endpointClass, new LongAdder());
+            shed.put(endpointClass, new LongAdder());
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !UrlPathHelper.defaultInstance.getPathWithinApplication(request).startsWith(API_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        EndpointClass endpointClass = classify(request.getMethod(), path);
+
+        long wait = buckets.get(clientOf(request), client -> new TokenBucket(requestsPerSecond, burst)).tryAcquire(System.nanoTime());
+        if (wait > 0) {
+            rateLimited.get(endpointClass).increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999)),
+                    "Course request rate limit exceeded, please retry");
+            return;
+        }
+        if (path.equals(CHANGES_PATH)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveConcurrencyLimit limit = limits.get(endpointClass);
+        if (!limit.tryAcquire()) {
+            shed.get(endpointClass).increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds, "Too many course requests in flight, please retry");
+            return;
+        }
+        long started = System.nanoTime();
+        boolean released = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(limit, started));
+                released = true;
+            }
+        } finally {
+            if (!released) {
+                limit.release(System.nanoTime() - started);
+            }
+        }
+    }
+
+    static EndpointClass classify(String method, String path) {
+        if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)) {
+            return BULK_PATH.matcher(path).matches() ? EndpointClass.BULK : EndpointClass.WRITE;
+        }
+        if (STREAM_PATH.matcher(path).matches()) {
+            return EndpointClass.STREAM;
+        }
+        return SINGLE_COURSE_PATH.matcher(path).matches() ? EndpointClass.GET : EndpointClass.LIST;
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "principal:" + principal.getName();
+        }
+        String client = trustedClientHeader.isEmpty() ? null : request.getHeader(trustedClientHeader);
+        return client == null || client.isBlank() ? request.getRemoteAddr() : "client:" + client;
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(message));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("course.throttle.clients", buckets, Cache::estimatedSize)
+                .description("Clients with a live rate limit bucket")
+                .register(registry);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String endpoint = endpointClass.name().toLowerCase();
+            AdaptiveConcurrencyLimit limit = limits.get(endpointClass);
+            Gauge.builder("course.throttle.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .tag("endpoint", endpoint)
+                    .register(registry);
+            Gauge.builder("course.throttle.in.flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .tag("endpoint", endpoint)
+                    .register(registry);
+            FunctionCounter.builder("course.throttle.rejected", rateLimited.get(endpointClass), LongAdder::sum)
+                    .tags("endpoint", endpoint, "reason", "rate_limited")
+                    .register(registry);
+            FunctionCounter.builder("course.throttle.rejected", shed.get(endpointClass), LongAdder::sum)
+                    .tags("endpoint", endpoint, "reason", "overloaded")
+                    .register(registry);
+        }
+    }
+
+    private static final class ReleaseOnComplete implements AsyncListener {
+        private final AdaptiveConcurrencyLimit limit;
+        private final long started;
+
+        private ReleaseOnComplete(AdaptiveConcurrencyLimit limit, long started) {
+            this.limit = limit;
+            this.started = started;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limit.release(System.nanoTime() - started);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.personal.courseproject.coursesystem.throttle;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket kept as a single timestamp (the generic cell rate algorithm): the bucket holds {@code burst}
+ * tokens and refills one every {@code nanosPerToken}. Acquiring is a compare-and-set on that timestamp, so
+ * concurrent requests of the same client never lock.
+ */
+final class TokenBucket {
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    TokenBucket(double tokensPerSecond, int burst) {
+        this.nanosPerToken = Math.max(1, (long) (1_000_000_000L / tokensPerSecond));
+        this.capacityNanos = nanosPerToken * burst;
+    }
+
+    /**
+     * Takes a token at {@code now} (in {@link System#nanoTime()} units). Returns 0 when a token was taken,
+     * otherwise how many nanoseconds to wait before the next one is available.
+     */
+    long tryAcquire(long now) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long nextArrival = Math.max(arrival, now) + nanosPerToken;
+            long wait = nextArrival - now - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, nextArrival)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.personal.courseproject.coursesystem.writebehind;
+
+import com.personal.courseproject.coursesystem.Course;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of accepted course updates, split into segment files so that everything written before a
+ * {@link #rotate} can be deleted once it is in the database. Each record carries a CRC, and reading a segment stops
+ * at the first torn or corrupt record, which is where a crash interrupted the last append.
+ * <p>
+ * {@link #sync} is a group commit: callers that appended while another thread was forcing the file to disk are
+ * all covered by the next force, so concurrent updates share fsyncs instead of queueing for one each.
+ */
+final class CourseUpdateJournal implements Closeable {
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final Object syncLock = new Object();
+    private final List<Path> closedSegments = new ArrayList<>();
+    private FileChannel segment;
+    private long nextSegment;
+    private long lastSeq;
+    private long appended;
+    private long synced;
+    private long syncs;
+
+    CourseUpdateJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens a new segment and returns the updates found in the segments left behind by an earlier run, oldest
+     * first. Those segments are kept until the next {@link #deleteClosedSegments}.
+     */
+    synchronized List<Entry> open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (Path file : segments) {
+            read(Files.readAllBytes(file), entries);
+            closedSegments.add(file);
+            nextSegment = Math.max(nextSegment, segmentNumber(file) + 1);
+        }
+        for (Entry entry : entries) {
+            lastSeq = Math.max(lastSeq, entry.seq);
+        }
+        segment = FileChannel.open(segmentPath(nextSegment++), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        return entries;
+    }
+
+    /**
+     * Writes the update to the current segment without forcing it to disk.
+     */
+    synchronized Entry append(Course update) throws IOException {
+        Entry entry = new Entry(++lastSeq, update);
+        ByteBuffer record = encode(entry);
+        int length = record.remaining();
+        while (record.hasRemaining()) {
+            segment.write(record);
+        }
+        appended += length;
+        entry.position = appended;
+        return entry;
+    }
+
+    /**
+     * Returns once the entry is on disk, forcing the segment unless a concurrent sync already covered it.
+     */
+    void sync(Entry entry) throws IOException {
+        synchronized (syncLock) {
+            if (synced >= entry.position) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                target = appended;
+                current = segment;
+            }
+            current.force(false);
+            synced = target;
+            syncs++;
+        }
+    }
+
+    /**
+     * Closes the current segment and starts a new one. Callers must make sure no append or sync runs meanwhile.
+     */
+    synchronized void rotate() throws IOException {
+        segment.close();
+        closedSegments.add(segmentPath(nextSegment - 1));
+        segment = FileChannel.open(segmentPath(nextSegment++), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    synchronized void deleteClosedSegments() throws IOException {
+        for (Path file : closedSegments) {
+            Files.deleteIfExists(file);
+        }
+        closedSegments.clear();
+    }
+
+    long syncs() {
+        synchronized (syncLock) {
+            return syncs;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%020d%s", number, SEGMENT_SUFFIX));
+    }
+
+    private static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static ByteBuffer encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream payload = new DataOutputStream(bytes)) {
+            payload.writeLong(entry.seq);
+            payload.writeInt(entry.update.getId());
+            payload.writeUTF(entry.update.getName());
+            LocalDateTime updatedAt = entry.update.getUpdatedAt();
+            payload.writeLong(updatedAt.toEpochSecond(ZoneOffset.UTC));
+            payload.writeInt(updatedAt.getNano());
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + payload.length + Integer.BYTES);
+        record.putInt(payload.length).put(payload).putInt((int) crc.getValue()).flip();
+        return record;
+    }
+
+    private static void read(byte[] segment, List<Entry> entries) throws IOException {
+        ByteBuffer records = ByteBuffer.wrap(segment);
+        while (records.remaining() >= Integer.BYTES) {
+            int length = records.getInt();
+            if (length <= 0 || records.remaining() < length + Integer.BYTES) {
+                return;
+            }
+            byte[] payload = new byte[length];
+            records.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (records.getInt() != (int) crc.getValue()) {
+                return;
+            }
+            try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload))) {
+                long seq = input.readLong();
+                int id = input.readInt();
+                String name = input.readUTF();
+                LocalDateTime updatedAt = LocalDateTime.ofEpochSecond(input.readLong(), input.readInt(), ZoneOffset.UTC);
+                entries.add(new Entry(seq, new Course(id, name, null, null, updatedAt, null)));
+            }
+        }
+    }
+
+    static final class Entry {
+        final long seq;
+        final Course update;
+        private long position;
+
+        Entry(long seq, Course update) {
+            this.seq = seq;
+            this.update = update;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.personal.courseproject.coursesystem.writebehind;
+
+import com.personal.courseproject.coursesystem.Course;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Takes course updates off the request path. An update is acknowledged once it is on disk in the
+ * {@link CourseUpdateJournal}; it then waits in memory, where a later update of the same course replaces it, until
+ * the next flush hands everything pending to the writer in one call. At most {@code course.write-behind.max-pending}
+ * courses wait at a time, and an update that finds no room within {@code course.write-behind.offer-timeout} is
+ * rejected with {@link RejectedExecutionException}.
+ * <p>
+ * A failed flush puts its updates back and is retried on the next tick. Journal segments are deleted only after
+ * the updates they hold were written, so updates acknowledged before a crash are written on the next start.
+ */
+@Component
+@ConditionalOnProperty(name = "course.write-behind.enabled", havingValue = "true")
+public class CourseWriteBehind implements SmartLifecycle, MeterBinder {
+    // Below the web server's phase, so it starts before requests arrive and stops, with a final flush, after them.
+    private static final int PHASE = Integer.MAX_VALUE - 2;
+
+    private final CourseUpdateJournal journal;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutNanos;
+    private final Capacity capacity;
+    private final ConcurrentMap<Integer, CourseUpdateJournal.Entry> pending = new ConcurrentHashMap<>();
+    // Appends hold the read lock from journaling to queueing, so a rotation never separates the two.
+    private final ReadWriteLock rotation = new ReentrantReadWriteLock();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "course-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile ToIntFunction<List<Course>> writer;
+    private volatile boolean running;
+
+    @Autowired
+    public CourseWriteBehind(@Value("${course.write-behind.journal-directory:course-journal}") String journalDirectory,
+                             @Value("${course.write-behind.flush-interval:PT0.05S}") Duration flushInterval,
+                             @Value("${course.write-behind.max-pending:10000}") int maxPending,
+                             @Value("${course.write-behind.offer-timeout:PT0.1S}") Duration offerTimeout) {
+        this.journal = new CourseUpdateJournal(Paths.get(journalDirectory));
+        this.flushIntervalMillis = Math.max(1, flushInterval.toMillis());
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.capacity = new Capacity(maxPending);
+    }
+
+    /**
+     * Sets what writes a flush: it receives each pending update once, as a course carrying the id, the new name
+     * and the update time, and returns how many of them it applied. Must be set before the context starts.
+     */
+    public void setWriter(ToIntFunction<List<Course>> writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Returns once the update is durable in the journal.
+     *
+     * @throws RejectedExecutionException if {@code course.write-behind.max-pending} courses are already waiting
+     */
+    public void submit(Course update) {
+        try {
+            if (!capacity.tryAcquire(offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new RejectedExecutionException("Too many course updates waiting to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting to queue a course update", e);
+        }
+        rotation.readLock().lock();
+        try {
+            CourseUpdateJournal.Entry entry = journal.append(update);
+            journal.sync(entry);
+            enqueue(entry);
+            queued.increment();
+        } catch (IOException e) {
+            capacity.release();
+            throw new UncheckedIOException(e);
+        } finally {
+            rotation.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes pending updates now if one of them is for {@code id}, and otherwise waits for a flush that is
+     * already writing. Called before a course is changed directly, so the direct change lands last.
+     */
+    public synchronized void flush(Integer id) {
+        if (pending.containsKey(id)) {
+            flush();
+        }
+    }
+
+    synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // Draining under the same lock as the rotation takes exactly the updates of the segments being closed. An
+        // update drained from the new segment would be written now but replayed from that segment on the next start.
+        List<CourseUpdateJournal.Entry> entries = new ArrayList<>(pending.size());
+        rotation.writeLock().lock();
+        try {
+            journal.rotate();
+            for (Integer id : pending.keySet()) {
+                CourseUpdateJournal.Entry entry = pending.remove(id);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        } catch (IOException e) {
+            failedFlushes.increment();
+            return;
+        } finally {
+            rotation.writeLock().unlock();
+        }
+        entries.sort(Comparator.comparing(entry -> entry.update.getId()));
+        List<Course> updates = new ArrayList<>(entries.size());
+        for (CourseUpdateJournal.Entry entry : entries) {
+            updates.add(entry.update);
+        }
+        int applied;
+        try {
+            applied = writer.applyAsInt(updates);
+        } catch (RuntimeException e) {
+            failedFlushes.increment();
+            entries.forEach(this::enqueue);
+            return;
+        }
+        written.add(applied);
+        dropped.add(updates.size() - applied);
+        capacity.release(entries.size());
+        try {
+            journal.deleteClosedSegments();
+        } catch (IOException e) {
+            failedFlushes.increment();
+        }
+    }
+
+    private void enqueue(CourseUpdateJournal.Entry entry) {
+        pending.merge(entry.update.getId(), entry, (current, update) -> {
+            coalesced.increment();
+            capacity.release();
+            return current.seq > update.seq ? current : update;
+        });
+    }
+
+    @Override
+    public void start() {
+        if (writer == null) {
+            throw new IllegalStateException("No writer set for course write-behind");
+        }
+        List<CourseUpdateJournal.Entry> recovered;
+        try {
+            recovered = journal.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        capacity.take(recovered.size());
+        recovered.forEach(this::enqueue);
+        flush();
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flusher.shutdownNow();
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("course.write.behind.pending", pending, ConcurrentMap::size)
+                .description("Courses with an acknowledged update that is not written yet")
+                .register(registry);
+        updates(registry, "queued", queued);
+        updates(registry, "coalesced", coalesced);
+        updates(registry, "rejected", rejected);
+        updates(registry, "written", written);
+        updates(registry, "dropped", dropped);
+        FunctionCounter.builder("course.write.behind.flush.failures", failedFlushes, LongAdder::sum)
+                .register(registry);
+        FunctionCounter.builder("course.write.behind.journal.syncs", journal, CourseUpdateJournal::syncs)
+                .description("Forces of the update journal to disk, each covering all updates appended before it")
+                .register(registry);
+    }
+
+    private static void updates(MeterRegistry registry, String result, LongAdder count) {
+        FunctionCounter.builder("course.write.behind.updates", count, LongAdder::sum)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static final class Capacity extends Semaphore {
+
+        Capacity(int permits) {
+            super(permits);
+        }
+
+        // Recovered updates are taken in even beyond the limit, which only delays new ones until they are written.
+        void take(int permits) {
+            reducePermits(permits);
+        }
+    }
+}
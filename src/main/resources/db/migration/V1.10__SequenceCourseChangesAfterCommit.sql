@@ -0,0 +1,7 @@
+-- Writers leave SEQ empty; CourseJdbcRepository.sequenceChanges() hands SEQs out once the write has committed.
+ALTER TABLE COURSE_CHANGE DROP CONSTRAINT course_change_pkey;
+ALTER TABLE COURSE_CHANGE ALTER COLUMN SEQ DROP DEFAULT;
+ALTER TABLE COURSE_CHANGE ALTER COLUMN SEQ DROP NOT NULL;
+ALTER TABLE COURSE_CHANGE ADD COLUMN WRITE_ID BIGSERIAL PRIMARY KEY;
+CREATE UNIQUE INDEX course_change_seq ON COURSE_CHANGE (SEQ);
+CREATE INDEX course_change_unsequenced ON COURSE_CHANGE (WRITE_ID) WHERE SEQ IS NULL;
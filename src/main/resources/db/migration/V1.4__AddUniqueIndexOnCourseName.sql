@@ -0,0 +1 @@
+CREATE UNIQUE INDEX COURSE_NAME_UNIQUE_IDX ON COURSE(NAME);
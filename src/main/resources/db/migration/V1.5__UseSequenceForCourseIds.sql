@@ -0,0 +1,4 @@
+ALTER TABLE COURSE ALTER COLUMN ID DROP IDENTITY;
+CREATE SEQUENCE COURSE_ID_SEQ INCREMENT BY 50 OWNED BY COURSE.ID;
+SELECT setval('COURSE_ID_SEQ', COALESCE(MAX(ID), 0) + 1, false) FROM COURSE;
+ALTER TABLE COURSE ALTER COLUMN ID SET DEFAULT nextval('COURSE_ID_SEQ');
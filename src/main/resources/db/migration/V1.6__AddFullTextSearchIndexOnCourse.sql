@@ -0,0 +1 @@
+CREATE INDEX COURSE_SEARCH_IDX ON COURSE USING GIN (to_tsvector('english', COALESCE(NAME, '') || ' ' || COALESCE(DESCRIPTION, '')));
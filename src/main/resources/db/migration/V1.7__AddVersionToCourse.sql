@@ -0,0 +1 @@
+ALTER TABLE COURSE ADD COLUMN VERSION INTEGER NOT NULL DEFAULT 0;
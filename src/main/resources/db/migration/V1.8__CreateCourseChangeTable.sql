@@ -0,0 +1,12 @@
+CREATE TABLE COURSE_CHANGE(
+SEQ BIGSERIAL,
+COURSE_ID BIGINT NOT NULL,
+OPERATION VARCHAR(10) NOT NULL,
+NAME VARCHAR(300) NOT NULL,
+DESCRIPTION VARCHAR(500) NOT NULL,
+CREATED_AT TIMESTAMP,
+UPDATED_AT TIMESTAMP,
+VERSION INTEGER NOT NULL,
+CHANGED_AT TIMESTAMP NOT NULL,
+PRIMARY KEY(SEQ)
+);
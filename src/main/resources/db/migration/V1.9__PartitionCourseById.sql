@@ -0,0 +1,49 @@
+-- PostgreSQL 10 has no hash partitioning, so courses are listed into 16 partitions by ID modulo 16. Ids come
+-- from COURSE_ID_SEQ in consecutive blocks, which spreads them evenly. CourseJdbcRepository.PARTITIONS must match.
+ALTER SEQUENCE COURSE_ID_SEQ OWNED BY NONE;
+ALTER TABLE COURSE RENAME TO COURSE_UNPARTITIONED;
+
+CREATE TABLE COURSE(
+ID BIGINT NOT NULL DEFAULT nextval('COURSE_ID_SEQ'),
+NAME VARCHAR(300) NOT NULL,
+DESCRIPTION VARCHAR(500) NOT NULL,
+CREATED_AT TIMESTAMP,
+UPDATED_AT TIMESTAMP,
+VERSION INTEGER NOT NULL DEFAULT 0
+) PARTITION BY LIST ((ID % 16));
+
+DO $$
+BEGIN
+    FOR p IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE COURSE_P%s PARTITION OF COURSE FOR VALUES IN (%s)', p, p);
+    END LOOP;
+END
+$$;
+
+-- A unique index cannot span partitions, so names are kept unique here and written together with COURSE.
+CREATE TABLE COURSE_NAME(
+NAME VARCHAR(300) NOT NULL,
+COURSE_ID BIGINT NOT NULL,
+PRIMARY KEY(NAME)
+);
+
+INSERT INTO COURSE (ID, NAME, DESCRIPTION, CREATED_AT, UPDATED_AT, VERSION)
+SELECT ID, NAME, DESCRIPTION, CREATED_AT, UPDATED_AT, VERSION FROM COURSE_UNPARTITIONED;
+INSERT INTO COURSE_NAME (NAME, COURSE_ID) SELECT NAME, ID FROM COURSE_UNPARTITIONED;
+DROP TABLE COURSE_UNPARTITIONED;
+
+CREATE UNIQUE INDEX COURSE_NAME_COURSE_ID_IDX ON COURSE_NAME(COURSE_ID);
+
+-- Indexes are per partition on PostgreSQL 10 and are built after the copy, which is faster than maintaining them.
+DO $$
+BEGIN
+    FOR p IN 0..15 LOOP
+        EXECUTE format('ALTER TABLE COURSE_P%s ADD PRIMARY KEY (ID)', p);
+        EXECUTE format('CREATE INDEX COURSE_P%s_CREATED_AT_IDX ON COURSE_P%s (CREATED_AT, ID)', p, p);
+        EXECUTE format('CREATE INDEX COURSE_P%s_SEARCH_IDX ON COURSE_P%s'
+                           || ' USING GIN (to_tsvector(''english'', COALESCE(NAME, '''') || '' '' || COALESCE(DESCRIPTION, '''')))', p, p);
+    END LOOP;
+END
+$$;
+
+ALTER SEQUENCE COURSE_ID_SEQ OWNED BY COURSE.ID;
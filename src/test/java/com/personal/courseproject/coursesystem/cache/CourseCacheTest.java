@@ -0,0 +1,120 @@
+package com.personal.courseproject.coursesystem.cache;
+
+import com.personal.courseproject.coursesystem.Course;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class CourseCacheTest {
+    private CourseCache courseCache;
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        courseCache = new CourseCache(100, Duration.ofMinutes(5), Duration.ofSeconds(2));
+        course = new Course(1, "API Development using SpringBoot", "course description here",
+                LocalDateTime.of(2021, 10, 25, 15, 45, 35), null);
+    }
+
+    @Test
+    void should_load_course_once_and_serve_it_by_id_and_by_name() {
+        courseCache.getById(1, id -> course);
+
+        Course byId = courseCache.getById(1, id -> Assertions.fail("should be cached"));
+        Course byName = courseCache.getIfPresent("API Development using SpringBoot");
+
+        Assertions.assertEquals(course, byId);
+        Assertions.assertEquals(course, byName);
+        Assertions.assertEquals(1L, courseCache.stats().getById().get("misses"));
+        Assertions.assertEquals(1L, courseCache.stats().getById().get("hits"));
+        Assertions.assertEquals(1L, courseCache.stats().getByName().get("hits"));
+    }
+
+    @Test
+    void should_not_cache_missing_courses() {
+        Assertions.assertNull(courseCache.getById(2, id -> null));
+
+        Assertions.assertEquals(0L, courseCache.stats().getById().get("size"));
+        Assertions.assertEquals(0L, courseCache.stats().getByName().get("size"));
+    }
+
+    @Test
+    void should_load_only_missing_courses_in_one_call() {
+        courseCache.put(course);
+        Course otherCourse = new Course(2, "API Development using SpringCloud", "course description here",
+                LocalDateTime.of(2021, 10, 25, 15, 45, 35), null);
+        List<Iterable<? extends Integer>> loads = new ArrayList<>();
+
+        Map<Integer, Course> courses = courseCache.getAllById(Arrays.asList(1, 2, 3), ids -> {
+            loads.add(ids);
+            return Collections.singletonMap(2, otherCourse);
+        });
+
+        Assertions.assertEquals(Map.of(1, course, 2, otherCourse), courses);
+        Assertions.assertEquals(1, loads.size());
+        Assertions.assertEquals(Set.of(2, 3), Set.copyOf((Collection<? extends Integer>) loads.get(0)));
+        Assertions.assertEquals(otherCourse, courseCache.getIfPresent("API Development using SpringCloud"));
+        Assertions.assertEquals(2L, courseCache.stats().getById().get("size"));
+    }
+
+    @Test
+    void should_evict_course_under_both_keys() {
+        courseCache.put(course);
+
+        courseCache.evict(course);
+
+        Assertions.assertNull(courseCache.getById(1, id -> null));
+        Assertions.assertNull(courseCache.getIfPresent("API Development using SpringBoot"));
+    }
+
+    @Test
+    void should_not_cache_course_loaded_while_it_was_evicted() {
+        Course loaded = courseCache.getById(1, id -> {
+            courseCache.evict(course);
+            return course;
+        });
+
+        Assertions.assertEquals(course, loaded);
+        Assertions.assertEquals(0L, courseCache.stats().getById().get("size"));
+        Assertions.assertNull(courseCache.getIfPresent("API Development using SpringBoot"));
+    }
+
+    @Test
+    void should_not_cache_courses_evicted_while_loading_them_together() {
+        Course otherCourse = new Course(2, "API Development using SpringCloud", "course description here",
+                LocalDateTime.of(2021, 10, 25, 15, 45, 35), null);
+
+        Map<Integer, Course> courses = courseCache.getAllById(Arrays.asList(1, 2), ids -> {
+            courseCache.evict(course);
+            return Map.of(1, course, 2, otherCourse);
+        });
+
+        Assertions.assertEquals(Map.of(1, course, 2, otherCourse), courses);
+        Assertions.assertNull(courseCache.getIfPresent("API Development using SpringBoot"));
+        Assertions.assertEquals(otherCourse, courseCache.getIfPresent("API Development using SpringCloud"));
+        Assertions.assertEquals(1L, courseCache.stats().getById().get("size"));
+    }
+
+    @Test
+    void should_publish_cache_statistics_to_meter_registry() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        courseCache.bindTo(meterRegistry);
+        courseCache.getById(1, id -> course);
+        courseCache.getById(1, id -> course);
+
+        Assertions.assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "courses.byId").tag("result", "hit").functionCounter().count());
+        Assertions.assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "courses.byId").tag("result", "miss").functionCounter().count());
+        Assertions.assertEquals(1.0, meterRegistry.get("cache.size").tag("cache", "courses.byName").gauge().value());
+    }
+}
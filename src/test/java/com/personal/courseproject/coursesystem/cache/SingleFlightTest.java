@@ -0,0 +1,110 @@
+package com.personal.courseproject.coursesystem.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SingleFlightTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void should_share_one_load_between_concurrent_callers() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(10));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        singleFlight.bindTo(meterRegistry);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        List<String> published = new ArrayList<>();
+
+        Future<String> leader = executor.submit(() -> singleFlight.load(1, key -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "course " + key;
+        }, (key, value) -> published.add(value)));
+        loading.await(5, TimeUnit.SECONDS);
+        List<Thread> followerThreads = new CopyOnWriteArrayList<>();
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            followers.add(executor.submit(() -> {
+                followerThreads.add(Thread.currentThread());
+                return singleFlight.load(1, key -> "reloaded " + key, (key, value) -> published.add(value));
+            }));
+        }
+        while (followerThreads.size() < 3 || followerThreads.stream().anyMatch(thread -> thread.getState() != Thread.State.TIMED_WAITING)) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        Assertions.assertEquals("course 1", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> follower : followers) {
+            Assertions.assertEquals("course 1", follower.get(5, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(List.of("course 1"), published);
+        Assertions.assertEquals(1.0, meterRegistry.get("course.single.flight.loads").tag("result", "led").functionCounter().count());
+        Assertions.assertEquals(3.0, meterRegistry.get("course.single.flight.loads").tag("result", "coalesced").functionCounter().count());
+    }
+
+    @Test
+    void should_load_directly_once_waiting_times_out() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", Duration.ofMillis(50));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> singleFlight.load(1, key -> {
+            loading.countDown();
+            await(release);
+            return "slow";
+        }, (key, value) -> {
+        }));
+        loading.await(5, TimeUnit.SECONDS);
+
+        String value = singleFlight.load(1, key -> "direct", (key, loaded) -> Assertions.fail("should not publish"));
+        String next = singleFlight.load(1, key -> "fresh", (key, loaded) -> {
+        });
+        release.countDown();
+
+        Assertions.assertEquals("direct", value);
+        Assertions.assertEquals("fresh", next);
+    }
+
+    @Test
+    void should_not_publish_load_forgotten_while_running() {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(1));
+        List<String> published = new ArrayList<>();
+
+        String value = singleFlight.load(1, key -> {
+            singleFlight.forget(key);
+            return "stale";
+        }, (key, loaded) -> published.add(loaded));
+
+        Assertions.assertEquals("stale", value);
+        Assertions.assertTrue(published.isEmpty());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
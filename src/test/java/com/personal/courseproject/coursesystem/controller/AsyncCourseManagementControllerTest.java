@@ -0,0 +1,135 @@
+package com.personal.courseproject.coursesystem.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.personal.courseproject.coursesystem.Course;
+import com.personal.courseproject.coursesystem.CourseFormat;
+import com.personal.courseproject.coursesystem.config.AsyncExecutionConfiguration;
+import com.personal.courseproject.coursesystem.exceptions.ErrorResponse;
+import com.personal.courseproject.coursesystem.service.CourseManagementService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = AsyncCourseManagementController.class, properties = "course.execution.mode=async")
+@Import(AsyncExecutionConfiguration.class)
+class AsyncCourseManagementControllerTest {
+
+    private final Course course = new Course(7, "API Development using SpringBoot", "course description here",
+            LocalDateTime.of(2021, 10, 25, 15, 45, 35), null);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private CourseManagementService courseManagementService;
+
+    @Test
+    void should_get_course_details_by_id_on_request_executor() throws Exception {
+        when(courseManagementService.getCoursesById(7)).thenAnswer(invocation -> {
+            if (!Thread.currentThread().getName().startsWith("course-request-")) {
+                throw new IllegalStateException("Expected to run on the course request executor");
+            }
+            return course;
+        });
+        when(courseManagementService.getCourseBody(course, CourseFormat.JSON)).thenAnswer(invocation -> objectMapper.writeValueAsBytes(course));
+
+        MvcResult result = mockMvc.perform(get("/api/courses/7").accept(APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(course)));
+    }
+
+    @Test
+    void should_link_to_next_page_from_request_executor() throws Exception {
+        List<Course> courses = Collections.singletonList(course);
+        when(courseManagementService.getCourses(null, 1)).thenReturn(courses);
+
+        MvcResult result = mockMvc.perform(get("/api/courses").param("limit", "1").accept(APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Link", "<http://localhost/api/courses?after=7&limit=1>; rel=\"next\""));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_import_courses_on_request_executor() throws Exception {
+        when(courseManagementService.importCourses(any(Iterator.class))).thenAnswer(invocation -> {
+            if (!Thread.currentThread().getName().startsWith("course-request-")) {
+                throw new IllegalStateException("Expected to run on the course request executor");
+            }
+            ((Iterator<Course>) invocation.getArgument(0)).forEachRemaining(c -> {
+            });
+            return new ArrayList<>();
+        });
+
+        MvcResult result = mockMvc.perform(post("/api/courses/bulk").contentType("application/x-ndjson")
+                        .accept(APPLICATION_JSON).content(objectMapper.writeValueAsString(course)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+    }
+
+    @Test
+    void should_serve_every_endpoint_of_the_synchronous_controller() {
+        Assertions.assertEquals(mappings(CourseManagementController.class), mappings(AsyncCourseManagementController.class));
+    }
+
+    @Test
+    void should_throw_error_message_when_deleting_course_by_invalid_id() throws Exception {
+        when(courseManagementService.deleteCourses(1)).thenReturn(false);
+
+        MvcResult result = mockMvc.perform(delete("/api/courses/1").accept(APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound())
+                .andExpect(content().json(objectMapper.writeValueAsString(new ErrorResponse("Course with id=1 not found"))));
+    }
+
+    private static Set<String> mappings(Class<?> controller) {
+        Set<String> mappings = new TreeSet<>();
+        for (Method method : controller.getDeclaredMethods()) {
+            RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+            if (mapping != null) {
+                mappings.add(Arrays.toString(mapping.method()) + " " + Arrays.toString(mapping.path())
+                        + " consumes " + Arrays.toString(mapping.consumes()) + " produces " + Arrays.toString(mapping.produces()));
+            }
+        }
+        return mappings;
+    }
+}
@@ -1,33 +1,65 @@
 package com.personal.courseproject.coursesystem.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.personal.courseproject.coursesystem.Course;
+import com.personal.courseproject.coursesystem.CourseChange;
+import com.personal.courseproject.coursesystem.CourseFormat;
+import com.personal.courseproject.coursesystem.cache.CourseCacheStats;
+import com.personal.courseproject.coursesystem.cache.CourseListSnapshot;
+import com.personal.courseproject.coursesystem.config.BinaryFormatConfiguration;
+import com.personal.courseproject.coursesystem.exceptions.DuplicateCourseTitleException;
 import com.personal.courseproject.coursesystem.exceptions.ErrorResponse;
+import com.personal.courseproject.coursesystem.service.CourseImportResult;
 import com.personal.courseproject.coursesystem.service.CourseManagementService;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static java.util.Optional.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(CourseManagementController.class)
+@Import(BinaryFormatConfiguration.class)
 class CourseManagementControllerTest {
 
     private Course newCourse;
@@ -55,6 +87,19 @@ class CourseManagementControllerTest {
         updatedCourse = new Course("API Development using SpringCloud","course description here");
         course = new Course("API Development using SpringBoot","course description here");
         newCourse = new Course("API Development using SpringBoot","course description here");
+        when(courseManagementService.getCourseListSnapshot(CourseFormat.JSON)).thenAnswer(invocation -> {
+            byte[] json = objectMapper.writeValueAsBytes(courseManagementService.getCourses());
+            return new CourseListSnapshot("1", json, gzip(json));
+        });
+        when(courseManagementService.getCourseBody(any(), eq(CourseFormat.JSON))).thenAnswer(invocation -> objectMapper.writeValueAsBytes(invocation.getArgument(0)));
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(json);
+        }
+        return gzipped.toByteArray();
     }
 
     @Test
@@ -80,6 +125,269 @@ class CourseManagementControllerTest {
         verify(courseManagementService, times(1)).getCourses();
     }
 
+    @Test
+    void should_serve_gzipped_course_list_snapshot_when_accepted() throws Exception {
+        courseList.add(new Course(1, "API Development using SpringBoot", "course description here", localDateTime, null));
+        when(courseManagementService.getCourses()).thenReturn(courseList);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/courses").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Content-Type", "application/json"))
+                .andReturn();
+
+        try (InputStream json = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            Assertions.assertEquals(objectMapper.writeValueAsString(courseList), new String(json.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().json(objectMapper.writeValueAsString(courseList), true));
+    }
+
+    @Test
+    void should_honour_quality_values_of_accepted_encodings() throws Exception {
+        when(courseManagementService.getCourses()).thenReturn(courseList);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses").header("Accept-Encoding", "deflate, gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses").header("Accept-Encoding", "br;q=1.0, GZIP ; q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"));
+        Assertions.assertTrue(CourseManagementController.acceptsGzip("*"));
+        Assertions.assertFalse(CourseManagementController.acceptsGzip("*, gzip;q=0"));
+        Assertions.assertFalse(CourseManagementController.acceptsGzip("x-notgzip"));
+        Assertions.assertFalse(CourseManagementController.acceptsGzip("identity"));
+    }
+
+    @Test
+    void should_get_page_of_courses_with_link_to_next_page() throws Exception {
+        Course pagedCourse = new Course(7, "API Development using SpringBoot", "course description here", localDateTime, null);
+        courseList.add(pagedCourse);
+        when(courseManagementService.getCourses(null, 1)).thenReturn(courseList);
+        String response = objectMapper.writeValueAsString(courseList);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses").param("limit", "1")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(response))
+                .andExpect(header().string("Link", "<http://localhost/api/courses?after=7&limit=1>; rel=\"next\""));
+        verify(courseManagementService, times(1)).getCourses(null, 1);
+        verify(courseManagementService, never()).getCourses();
+    }
+
+    @Test
+    void should_not_link_to_next_page_when_page_is_not_full() throws Exception {
+        when(courseManagementService.getCourses(7, 100)).thenReturn(courseList);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses").param("after", "7")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"))
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    void should_not_get_page_of_courses_when_limit_is_out_of_range() throws Exception {
+        String response = objectMapper.writeValueAsString(new ErrorResponse("limit must be between 1 and 1000"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses").param("limit", "0")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().json(response));
+        verify(courseManagementService, never()).getCourses(any(), anyInt());
+    }
+
+    @Test
+    void should_get_courses_by_ids_in_request_order_with_misses_as_null() throws Exception {
+        Course firstCourse = new Course(3, "API Development using SpringBoot", "course description here", localDateTime, null);
+        Course secondCourse = new Course(1, "API Development using SpringCloud", "course description here", localDateTime, null);
+        when(courseManagementService.getCoursesByIds(Arrays.asList(3, 2, 1))).thenReturn(Arrays.asList(firstCourse, null, secondCourse));
+        String response = objectMapper.writeValueAsString(Arrays.asList(firstCourse, null, secondCourse));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses").param("ids", "3,2,1")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(response, true));
+        verify(courseManagementService, never()).getCourses();
+    }
+
+    @Test
+    void should_not_get_courses_by_ids_when_an_id_is_blank() throws Exception {
+        String response = objectMapper.writeValueAsString(new ErrorResponse("ids must list between 1 and 1000 course ids"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses").param("ids", "1,,2")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().json(response));
+        verify(courseManagementService, never()).getCoursesByIds(any());
+    }
+
+    @Test
+    void should_get_courses_created_in_range_with_link_continuing_after_the_last_one() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2021, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2022, 1, 1, 0, 0);
+        Course createdCourse = new Course(9, "API Development using SpringBoot", "course description here", LocalDateTime.of(2021, 3, 4, 5, 6, 7), null);
+        when(courseManagementService.getCoursesCreatedBetween(from, to, null, 1)).thenReturn(List.of(createdCourse));
+        String response = objectMapper.writeValueAsString(List.of(createdCourse));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses/created?from=2021-01-01T00:00:00&to=2022-01-01T00:00:00&limit=1")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(response))
+                .andExpect(header().string("Link", "<http://localhost/api/courses/created?to=2022-01-01T00:00:00&from=2021-03-04T05:06:07&after=9&limit=1>; rel=\"next\""));
+    }
+
+    @Test
+    void should_not_get_courses_created_in_range_when_range_is_empty() throws Exception {
+        String response = objectMapper.writeValueAsString(new ErrorResponse("from must be before to"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses/created?from=2022-01-01T00:00:00&to=2021-01-01T00:00:00")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().json(response));
+        verify(courseManagementService, never()).getCoursesCreatedBetween(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void should_search_courses_and_link_to_next_page_when_page_is_full() throws Exception {
+        Course matchingCourse = new Course(3, "API Development using SpringBoot", "course description here", localDateTime, null);
+        when(courseManagementService.searchCourses("springboot api", 0, 1)).thenReturn(List.of(matchingCourse));
+        String response = objectMapper.writeValueAsString(List.of(matchingCourse));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses/search?q=springboot api&limit=1")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(response))
+                .andExpect(header().string("Link", "<http://localhost/api/courses/search?q=springboot%20api&offset=1&limit=1>; rel=\"next\""));
+        verify(courseManagementService, times(1)).searchCourses("springboot api", 0, 1);
+    }
+
+    @Test
+    void should_not_search_courses_without_query() throws Exception {
+        String response = objectMapper.writeValueAsString(new ErrorResponse("q is required"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses/search").param("q", " ")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().json(response));
+        verify(courseManagementService, never()).searchCourses(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void should_get_changes_since_sequence_without_waiting() throws Exception {
+        List<CourseChange> changes = Collections.singletonList(new CourseChange(8, CourseChange.Operation.CREATED,
+                new Course(1, "API Development using SpringBoot", "course description here", localDateTime, null, 0), localDateTime));
+        when(courseManagementService.getChanges(7, 100)).thenReturn(changes);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/courses/changes").param("since", "7")
+                        .accept(APPLICATION_JSON))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(changes)));
+        verify(courseManagementService, never()).subscribeToChanges(anyLong(), anyInt(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_long_poll_for_changes_until_feed_delivers() throws Exception {
+        List<CourseChange> changes = Collections.singletonList(new CourseChange(8, CourseChange.Operation.DELETED,
+                new Course(1, "API Development using SpringBoot", "course description here", localDateTime, null, 0), localDateTime));
+        Runnable cancel = mock(Runnable.class);
+        when(courseManagementService.subscribeToChanges(eq(7L), eq(100), any())).thenAnswer(invocation -> {
+            ((Consumer<List<CourseChange>>) invocation.getArgument(2)).accept(changes);
+            return cancel;
+        });
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/courses/changes").param("since", "7").param("wait", "20")
+                        .accept(APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(changes)));
+        verify(courseManagementService, never()).getChanges(anyLong(), anyInt());
+    }
+
+    @Test
+    void should_not_wait_for_changes_longer_than_allowed() throws Exception {
+        String response = objectMapper.writeValueAsString(new ErrorResponse("wait must be between 0 and 30 seconds"));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/courses/changes").param("wait", "31")
+                        .accept(APPLICATION_JSON))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().json(response));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_stream_courses_as_ndjson() throws Exception {
+        Course streamedCourse = new Course(1, "API Development using SpringBoot", "course description here", localDateTime, null);
+        doAnswer(invocation -> {
+            Consumer<Course> consumer = invocation.getArgument(0);
+            consumer.accept(streamedCourse);
+            consumer.accept(streamedCourse);
+            return null;
+        }).when(courseManagementService).streamCourses(any(Consumer.class));
+        String line = objectMapper.writeValueAsString(streamedCourse);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/courses/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(content().string(line + "\n" + line + "\n"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_export_courses_as_gzipped_csv() throws Exception {
+        Course exportedCourse = new Course(1, "API Development, using SpringBoot", "course description here",
+                LocalDateTime.of(2021, 10, 25, 15, 45, 35), null, 0);
+        doAnswer(invocation -> {
+            ((Consumer<Course>) invocation.getArgument(0)).accept(exportedCourse);
+            return null;
+        }).when(courseManagementService).streamCourses(any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/courses/export")
+                        .accept("text/csv").header("Accept-Encoding", "gzip"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult exported = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"courses.csv\""))
+                .andReturn();
+        try (InputStream csv = new GZIPInputStream(new ByteArrayInputStream(exported.getResponse().getContentAsByteArray()))) {
+            Assertions.assertEquals("id,name,description,createdAt,updatedAt,version\n"
+                            + "1,\"API Development, using SpringBoot\",\"course description here\",2021-10-25T15:45:35,,0\n",
+                    new String(csv.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void should_get_cache_statistics() throws Exception {
+        CacheStats byIdStats = new CacheStats(3, 1, 1, 0, 5, 2, 0);
+        when(courseManagementService.getCacheStats()).thenReturn(new CourseCacheStats(byIdStats, 1, CacheStats.empty(), 0));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses/cache/stats")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"byId\":{\"hits\":3,\"misses\":1,\"evictions\":2,\"size\":1},"
+                        + "\"byName\":{\"hits\":0,\"misses\":0,\"evictions\":0,\"size\":0}}"));
+    }
+
     @Test
     void should_get_course_details_by_id() throws Exception {
         when(courseManagementService.getCoursesById(1)).thenReturn(course);
@@ -92,6 +400,38 @@ class CourseManagementControllerTest {
         verify(courseManagementService, times(1)).getCoursesById(1);
     }
 
+    @Test
+    void should_get_course_list_in_the_binary_format_the_client_accepts() throws Exception {
+        byte[] cbor = {(byte) 0x9f, (byte) 0xff};
+        when(courseManagementService.getCatalogVersion()).thenReturn("17c-3");
+        when(courseManagementService.getCourseListSnapshot(CourseFormat.CBOR)).thenReturn(new CourseListSnapshot("17c-3", cbor, gzip(cbor)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses")
+                        .accept("application/cbor, application/json;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(content().bytes(cbor))
+                .andExpect(header().string("ETag", "\"catalog-17c-3-cbor\""))
+                .andExpect(header().stringValues("Vary", "Accept", "Accept-Encoding"));
+    }
+
+    @Test
+    void should_write_epoch_timestamps_when_a_page_is_requested_as_smile() throws Exception {
+        Course storedCourse = new Course(1, "API Development using SpringBoot", "course description here", localDateTime, null, 2);
+        when(courseManagementService.getCourses(null, 1)).thenReturn(List.of(storedCourse));
+
+        byte[] smile = mockMvc.perform(MockMvcRequestBuilders.get("/api/courses?limit=1")
+                        .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ObjectMapper smileMapper = CourseFormat.SMILE.createBinaryMapper();
+        Assertions.assertEquals(localDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                smileMapper.readTree(smile).get(0).get("createdAt").longValue());
+        Assertions.assertEquals(List.of(storedCourse), smileMapper.readValue(smile, new TypeReference<List<Course>>() { }));
+    }
+
     @Test
     void should_not_get_course_if_the_id_is_invalid() throws Exception {
         when(courseManagementService.getCoursesById(1)).thenReturn(null);
@@ -101,6 +441,58 @@ class CourseManagementControllerTest {
         verify(courseManagementService, times(1)).getCoursesById(1);
     }
 
+    @Test
+    void should_return_not_modified_when_course_etag_matches() throws Exception {
+        Course storedCourse = new Course(1, "API Development using SpringBoot", "course description here", localDateTime, null);
+        when(courseManagementService.getCoursesById(1)).thenReturn(storedCourse);
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get("/api/courses/1")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses/1")
+                        .header("If-None-Match", eTag)
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void should_tag_course_with_its_id_and_version() throws Exception {
+        Course storedCourse = new Course(1, "API Development using SpringBoot", "course description here", localDateTime, null, 3);
+        when(courseManagementService.getCoursesById(1)).thenReturn(storedCourse);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses/1")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3\""));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses/1")
+                        .header("If-None-Match", "\"1-2\"")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void should_return_not_modified_when_catalog_version_is_unchanged() throws Exception {
+        when(courseManagementService.getCatalogVersion()).thenReturn("17c-3");
+        when(courseManagementService.getCourses()).thenReturn(new ArrayList<>());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses")
+                        .header("If-None-Match", "\"catalog-17c-3\"")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+        verify(courseManagementService, never()).getCourses();
+
+        when(courseManagementService.getCatalogVersion()).thenReturn("17c-4");
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/courses")
+                        .header("If-None-Match", "\"catalog-17c-3\"")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"catalog-17c-4\""));
+        verify(courseManagementService, times(1)).getCourses();
+    }
+
     @Test
     void should_add_courses_successfully() throws Exception {
         Course courseAfterAdded = new Course(1, "API Development using SpringBoot", "course description here", localDateTime, null);
@@ -153,6 +545,85 @@ class CourseManagementControllerTest {
                         .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_import_courses_from_json_array() throws Exception {
+        List<CourseImportResult> results = Arrays.asList(CourseImportResult.created("API Development using SpringBoot"),
+                CourseImportResult.rejected("API Development using SpringCloud", "Course with title API Development using SpringCloud already exists"));
+        List<Course> importedCourses = new ArrayList<>();
+        when(courseManagementService.importCourses(any(Iterator.class))).thenAnswer(invocation -> {
+            ((Iterator<Course>) invocation.getArgument(0)).forEachRemaining(importedCourses::add);
+            return results;
+        });
+        String requestJson = objectMapper.writeValueAsString(Arrays.asList(course, updatedCourse));
+
+        mockMvc.perform(post("/api/courses/bulk").contentType("application/json")
+                        .accept("application/json").content(requestJson))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"name\":\"API Development using SpringBoot\",\"status\":201},"
+                        + "{\"name\":\"API Development using SpringCloud\",\"status\":400,"
+                        + "\"error\":\"Course with title API Development using SpringCloud already exists\"}]", true));
+        Assertions.assertEquals(Arrays.asList(course, updatedCourse), importedCourses);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_import_courses_from_ndjson() throws Exception {
+        List<Course> importedCourses = new ArrayList<>();
+        when(courseManagementService.importCourses(any(Iterator.class))).thenAnswer(invocation -> {
+            ((Iterator<Course>) invocation.getArgument(0)).forEachRemaining(importedCourses::add);
+            return new ArrayList<>();
+        });
+        String requestNdjson = objectMapper.writeValueAsString(course) + "\n" + objectMapper.writeValueAsString(updatedCourse) + "\n";
+
+        mockMvc.perform(post("/api/courses/bulk").contentType("application/x-ndjson")
+                        .accept("application/json").content(requestNdjson))
+                .andExpect(status().isOk());
+        Assertions.assertEquals(Arrays.asList(course, updatedCourse), importedCourses);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_not_import_courses_when_payload_is_malformed() throws Exception {
+        when(courseManagementService.importCourses(any(Iterator.class))).thenAnswer(invocation -> {
+            ((Iterator<Course>) invocation.getArgument(0)).forEachRemaining(c -> {
+            });
+            return new ArrayList<>();
+        });
+
+        mockMvc.perform(post("/api/courses/bulk").contentType("application/json")
+                        .accept("application/json").content("[{\"name\": }]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_import_gzipped_csv_catalog_and_report_summary() throws Exception {
+        List<Course> importedCourses = new ArrayList<>();
+        doAnswer(invocation -> {
+            Consumer<CourseImportResult> results = invocation.getArgument(1);
+            ((Iterator<Course>) invocation.getArgument(0)).forEachRemaining(importedCourse -> {
+                importedCourses.add(importedCourse);
+                results.accept(CourseImportResult.created(importedCourse.getName()));
+            });
+            return null;
+        }).when(courseManagementService).importCourses(any(Iterator.class), any(Consumer.class));
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (OutputStream csv = new GZIPOutputStream(gzipped)) {
+            csv.write(("id,name,description,createdAt,updatedAt,version\n"
+                    + "1,\"API Development using SpringBoot\",\"course description here\",2021-10-25T15:45:35,,0\n"
+                    + "2,\"API Development using SpringCloud\",\"course description here\",,,\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        mockMvc.perform(post("/api/courses/import").contentType("text/csv").header("Content-Encoding", "gzip")
+                        .accept("application/json").content(gzipped.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"created\":2,\"rejected\":0,\"rejections\":[]}", true));
+        Assertions.assertEquals(Arrays.asList(course, updatedCourse),
+                Arrays.asList(new Course(importedCourses.get(0).getName(), importedCourses.get(0).getDescription()),
+                        new Course(importedCourses.get(1).getName(), importedCourses.get(1).getDescription())));
+    }
+
     @Test
     void should_update_already_added_course_details_by_id()throws Exception {
         Course courseAfterUpdated = new Course(1, "API Development using SpringCloud", "course description here", localDateTime, localDateTime);
@@ -184,6 +655,83 @@ class CourseManagementControllerTest {
                 .andExpect(status().isBadRequest()).andExpect(content().json(response));
     }
 
+    @Test
+    void should_return_conflict_when_course_was_updated_concurrently() throws Exception {
+        updatedCourse.setVersion(3);
+        when(courseManagementService.updateCourses(1, updatedCourse))
+                .thenThrow(new OptimisticLockingFailureException("Course with id=1 is no longer at version 3"));
+        RequestBuilder requestBuilder = put("/api/courses/1")
+                .contentType("application/json")
+                .accept("application/json")
+                .content(objectMapper.writeValueAsString(updatedCourse));
+
+        String response = objectMapper.writeValueAsString(new ErrorResponse("Course with id=1 is no longer at version 3"));
+
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isConflict()).andExpect(content().json(response));
+    }
+
+    @Test
+    void should_not_rename_course_to_a_title_that_already_exists() throws Exception {
+        when(courseManagementService.updateCourses(1, updatedCourse))
+                .thenThrow(new DuplicateCourseTitleException(updatedCourse.getName()));
+        RequestBuilder requestBuilder = put("/api/courses/1")
+                .contentType("application/json")
+                .accept("application/json")
+                .content(objectMapper.writeValueAsString(updatedCourse));
+
+        String response = objectMapper.writeValueAsString(new ErrorResponse("Course with title " + updatedCourse.getName() + " already exists"));
+
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isBadRequest()).andExpect(content().json(response));
+    }
+
+    @Test
+    void should_accept_update_when_writing_behind() throws Exception {
+        Course acceptedCourse = new Course(1, "API Development using SpringCloud", "course description here", localDateTime, localDateTime, null);
+        when(courseManagementService.isWritingBehind()).thenReturn(true);
+        when(courseManagementService.queueCourseUpdate(1, updatedCourse)).thenReturn(acceptedCourse);
+        RequestBuilder requestBuilder = put("/api/courses/1")
+                .contentType("application/json")
+                .accept("application/json")
+                .content(objectMapper.writeValueAsString(updatedCourse));
+
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isAccepted()).andExpect(content().json(objectMapper.writeValueAsString(acceptedCourse)));
+        verify(courseManagementService, never()).updateCourses(any(), any());
+    }
+
+    @Test
+    void should_not_queue_rename_to_a_title_that_already_exists() throws Exception {
+        when(courseManagementService.isWritingBehind()).thenReturn(true);
+        when(courseManagementService.queueCourseUpdate(1, updatedCourse))
+                .thenThrow(new DuplicateCourseTitleException(updatedCourse.getName()));
+        RequestBuilder requestBuilder = put("/api/courses/1")
+                .contentType("application/json")
+                .accept("application/json")
+                .content(objectMapper.writeValueAsString(updatedCourse));
+
+        String response = objectMapper.writeValueAsString(new ErrorResponse("Course with title " + updatedCourse.getName() + " already exists"));
+
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isBadRequest()).andExpect(content().json(response));
+    }
+
+    @Test
+    void should_return_service_unavailable_when_too_many_updates_are_queued() throws Exception {
+        when(courseManagementService.isWritingBehind()).thenReturn(true);
+        when(courseManagementService.queueCourseUpdate(1, updatedCourse)).thenThrow(new RejectedExecutionException("full"));
+        RequestBuilder requestBuilder = put("/api/courses/1")
+                .contentType("application/json")
+                .accept("application/json")
+                .content(objectMapper.writeValueAsString(updatedCourse));
+
+        String response = objectMapper.writeValueAsString(new ErrorResponse("Too many course updates queued, please retry"));
+
+        mockMvc.perform(requestBuilder)
+                .andExpect(status().isServiceUnavailable()).andExpect(content().json(response));
+    }
+
     @Test
     void should_not_update_when_course_title_is_null() throws Exception {
         updatedCourse.setName(null);
@@ -209,6 +757,7 @@ class CourseManagementControllerTest {
                 .accept("application/json");
 
         mockMvc.perform(requestBuilder2).andExpect(status().isOk());
+        verify(courseManagementService, times(1)).deleteCourses(1);
     }
 
     @Test
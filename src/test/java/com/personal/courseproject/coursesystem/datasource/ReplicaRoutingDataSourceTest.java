@@ -0,0 +1,128 @@
+package com.personal.courseproject.coursesystem.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection firstReplicaConnection = mock(Connection.class);
+    private final Connection secondReplicaConnection = mock(Connection.class);
+    private final ResultSet secondReplicaLag = mock(ResultSet.class);
+    private DataSource primary;
+    private DataSource firstReplica;
+    private DataSource secondReplica;
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        firstReplica = replica(firstReplicaConnection, mock(ResultSet.class));
+        secondReplica = replica(secondReplicaConnection, secondReplicaLag);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", firstReplica);
+        replicas.put("replica-2", secondReplica);
+        replicaRoutingDataSource = new ReplicaRoutingDataSource(primary, replicas, new RecentWrites(Duration.ZERO),
+                Duration.ofSeconds(5), Duration.ofHours(1));
+        replicaRoutingDataSource.checkReplicas();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void should_spread_read_only_transactions_over_replicas_and_keep_writes_on_primary() throws SQLException {
+        Assertions.assertSame(firstReplicaConnection, replicaRoutingDataSource.getConnection());
+        Assertions.assertSame(secondReplicaConnection, replicaRoutingDataSource.getConnection());
+        Assertions.assertSame(firstReplicaConnection, replicaRoutingDataSource.getConnection());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+
+        Assertions.assertSame(primaryConnection, replicaRoutingDataSource.getConnection());
+    }
+
+    @Test
+    void should_skip_replicas_that_fail_or_lag_and_fall_back_to_primary() throws SQLException {
+        when(firstReplica.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(secondReplicaLag.getDouble(1)).thenReturn(30.0);
+
+        Assertions.assertSame(secondReplicaConnection, replicaRoutingDataSource.getConnection());
+        replicaRoutingDataSource.checkReplicas();
+
+        Assertions.assertSame(primaryConnection, replicaRoutingDataSource.getConnection());
+        Assertions.assertSame(primaryConnection, replicaRoutingDataSource.getConnection());
+    }
+
+    @Test
+    void should_take_down_replicas_that_cannot_tell_their_lag() throws SQLException {
+        when(secondReplicaLag.wasNull()).thenReturn(true);
+        replicaRoutingDataSource.checkReplicas();
+
+        Assertions.assertSame(firstReplicaConnection, replicaRoutingDataSource.getConnection());
+        Assertions.assertSame(firstReplicaConnection, replicaRoutingDataSource.getConnection());
+    }
+
+    @Test
+    void should_open_connections_with_explicit_credentials_on_primary() throws SQLException {
+        when(primary.getConnection("reporting", "secret")).thenReturn(primaryConnection);
+
+        Assertions.assertSame(primaryConnection, replicaRoutingDataSource.getConnection("reporting", "secret"));
+    }
+
+    @Test
+    void should_read_only_recently_written_courses_from_primary() throws SQLException {
+        RecentWrites recentWrites = new RecentWrites(Duration.ofMinutes(1));
+        Map<String, DataSource> replicas = Map.of("replica-1", firstReplica);
+        DataSource primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, recentWrites,
+                Duration.ofSeconds(5), Duration.ofHours(1));
+        routing.checkReplicas();
+
+        recentWrites.written(List.of(7));
+
+        Assertions.assertSame(primaryConnection, recentWrites.onPrimaryIf(recentWrites.isPending(7), connectionOf(routing)));
+        Assertions.assertSame(firstReplicaConnection, recentWrites.onPrimaryIf(recentWrites.isPending(8), connectionOf(routing)));
+        Assertions.assertSame(firstReplicaConnection, routing.getConnection());
+        Assertions.assertSame(primaryConnection, recentWrites.onPrimaryIf(recentWrites.isListPending(), connectionOf(routing)));
+    }
+
+    private static Supplier<Connection> connectionOf(DataSource dataSource) {
+        return () -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static DataSource replica(Connection connection, ResultSet lag) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Statement statement = mock(Statement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(lag);
+        when(lag.next()).thenReturn(true);
+        return dataSource;
+    }
+}
@@ -0,0 +1,107 @@
+package com.personal.courseproject.coursesystem.invalidation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.personal.courseproject.coursesystem.datasource.RecentWrites;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+
+class PostgresCourseInvalidationBusTest {
+    private static final int MAX_NOTIFY_PAYLOAD_BYTES = 8000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RecentWrites recentWrites = new RecentWrites(Duration.ofMinutes(1));
+    private final List<CourseInvalidation> delivered = new ArrayList<>();
+    private PostgresCourseInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        bus = bus();
+        bus.subscribe(delivered::add);
+    }
+
+    @Test
+    void should_split_many_courses_into_payloads_postgres_accepts() throws Exception {
+        Map<Integer, String> courses = new LinkedHashMap<>();
+        for (int id = 1; id <= 2000; id++) {
+            courses.put(id, "Course " + id);
+        }
+
+        List<String> payloads = bus.payloads(CourseInvalidation.courses(courses));
+
+        Assertions.assertTrue(payloads.size() > 1);
+        Assertions.assertEquals(courses, coursesOf(payloads));
+        payloads.forEach(payload -> Assertions.assertTrue(payload.getBytes(StandardCharsets.UTF_8).length < MAX_NOTIFY_PAYLOAD_BYTES));
+    }
+
+    @Test
+    void should_split_long_names_by_their_encoded_size() throws Exception {
+        Map<Integer, String> courses = new LinkedHashMap<>();
+        for (int id = 1; id <= 10; id++) {
+            courses.put(id, "Ünïcödé \"quoted\" " + "é".repeat(400) + id);
+        }
+
+        List<String> payloads = bus.payloads(CourseInvalidation.courses(courses));
+
+        Assertions.assertEquals(courses, coursesOf(payloads));
+        payloads.forEach(payload -> Assertions.assertTrue(payload.getBytes(StandardCharsets.UTF_8).length < MAX_NOTIFY_PAYLOAD_BYTES));
+    }
+
+    @Test
+    void should_keep_an_invalidation_of_everything() throws Exception {
+        List<String> payloads = bus.payloads(CourseInvalidation.everything());
+
+        Assertions.assertEquals(1, payloads.size());
+        Assertions.assertTrue(objectMapper.readTree(payloads.get(0)).path("everything").asBoolean());
+    }
+
+    @Test
+    void should_ignore_its_own_invalidations() {
+        bus.payloads(CourseInvalidation.course(1, "Java")).forEach(bus::receive);
+
+        Assertions.assertEquals(List.of(), delivered);
+        Assertions.assertFalse(recentWrites.isListPending());
+    }
+
+    @Test
+    void should_deliver_invalidations_of_other_instances_and_read_them_from_primary() {
+        bus().payloads(CourseInvalidation.course(1, "Java")).forEach(bus::receive);
+
+        Assertions.assertTrue(recentWrites.isPending(1));
+        Assertions.assertFalse(recentWrites.isPending(2));
+        bus().payloads(CourseInvalidation.everything()).forEach(bus::receive);
+
+        Assertions.assertEquals(2, delivered.size());
+        Assertions.assertEquals(Map.of(1, "Java"), delivered.get(0).getCourses());
+        Assertions.assertTrue(delivered.get(1).isEverything());
+        Assertions.assertTrue(recentWrites.isPending(2));
+    }
+
+    private PostgresCourseInvalidationBus bus() {
+        return new PostgresCourseInvalidationBus(mock(JdbcTemplate.class), mock(DataSource.class), recentWrites,
+                objectMapper, Duration.ofSeconds(1));
+    }
+
+    private Map<Integer, String> coursesOf(List<String> payloads) throws Exception {
+        Map<Integer, String> courses = new LinkedHashMap<>();
+        for (String payload : payloads) {
+            JsonNode message = objectMapper.readTree(payload);
+            Assertions.assertFalse(message.path("everything").asBoolean());
+            message.path("courses").fields()
+                    .forEachRemaining(course -> courses.put(Integer.valueOf(course.getKey()), course.getValue().asText()));
+        }
+        return courses;
+    }
+}
@@ -0,0 +1,161 @@
+package com.personal.courseproject.coursesystem.repository;
+
+import com.personal.courseproject.coursesystem.Course;
+import com.personal.courseproject.coursesystem.CourseChange;
+import com.personal.courseproject.coursesystem.CourseChange.Operation;
+import com.personal.courseproject.coursesystem.datasource.RecentWrites;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+class CourseJdbcRepositoryTest {
+    private static EmbeddedPostgres postgres;
+    private static CourseJdbcRepository courseJdbcRepository;
+    private static TransactionTemplate transactionTemplate;
+
+    private final LocalDateTime createdAt = LocalDateTime.of(2021, 11, 20, 10, 0);
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        DataSource dataSource = postgres.getPostgresDatabase();
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        courseJdbcRepository = new CourseJdbcRepository(jdbcTemplate, new CourseIdSequence(jdbcTemplate),
+                new RecentWrites(Duration.ofSeconds(5)), 500, 100);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void should_number_changes_in_commit_order_without_blocking_writers() throws Exception {
+        long since = latestSeq();
+        CountDownLatch bulkWritten = new CountDownLatch(1);
+        CountDownLatch commitBulk = new CountDownLatch(1);
+        CompletableFuture<Void> bulk = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            courseJdbcRepository.insertAll(List.of(course("Bulk 1"), course("Bulk 2")));
+            bulkWritten.countDown();
+            await(commitBulk);
+        }));
+        Assertions.assertTrue(bulkWritten.await(10, TimeUnit.SECONDS));
+
+        courseJdbcRepository.insert(course("Single"));
+        courseJdbcRepository.sequenceChanges();
+
+        Assertions.assertEquals(List.of("Single"), namesChangedSince(since));
+        commitBulk.countDown();
+        bulk.get(10, TimeUnit.SECONDS);
+        courseJdbcRepository.sequenceChanges();
+        Assertions.assertEquals(List.of("Single", "Bulk 1", "Bulk 2"), namesChangedSince(since));
+    }
+
+    @Test
+    void should_rename_a_course_in_its_partition_and_log_the_change() {
+        long since = latestSeq();
+        Course course = courseJdbcRepository.insert(course("Before rename"));
+
+        CourseUpdate update = courseJdbcRepository.update(course.getId(), "After rename", createdAt.plusDays(1), null);
+
+        Assertions.assertEquals("Before rename", update.getPreviousName());
+        Assertions.assertEquals(1, update.getCourse().getVersion());
+        Assertions.assertEquals("After rename", courseJdbcRepository.findById(course.getId()).getName());
+        Assertions.assertEquals(List.of("After rename"), courseJdbcRepository.findExistingNames(List.of("Before rename", "After rename")));
+        Assertions.assertEquals(List.of(Operation.CREATED, Operation.UPDATED), operationsSince(since));
+    }
+
+    @Test
+    void should_update_only_at_the_expected_version() {
+        Course course = courseJdbcRepository.insert(course("Versioned"));
+
+        Assertions.assertThrows(OptimisticLockingFailureException.class,
+                () -> courseJdbcRepository.update(course.getId(), "Versioned twice", createdAt, 1));
+        Assertions.assertEquals("Versioned once", courseJdbcRepository.update(course.getId(), "Versioned once", createdAt, 0)
+                .getCourse().getName());
+        Assertions.assertNull(courseJdbcRepository.update(-1, "Missing", createdAt, 0));
+    }
+
+    @Test
+    void should_delete_a_course_and_free_its_name() {
+        long since = latestSeq();
+        Course course = courseJdbcRepository.insert(course("Deleted"));
+
+        Assertions.assertEquals("Deleted", courseJdbcRepository.delete(course.getId()).getName());
+
+        Assertions.assertNull(courseJdbcRepository.findById(course.getId()));
+        Assertions.assertNull(courseJdbcRepository.delete(course.getId()));
+        Assertions.assertEquals(List.of(), courseJdbcRepository.findExistingNames(List.of("Deleted")));
+        Assertions.assertEquals(List.of(Operation.CREATED, Operation.DELETED), operationsSince(since));
+        Assertions.assertNotNull(courseJdbcRepository.insert(course("Deleted")));
+    }
+
+    @Test
+    void should_rename_many_courses_across_partitions() {
+        Course first = courseJdbcRepository.insert(course("Bulk rename 1"));
+        Course second = courseJdbcRepository.insert(course("Bulk rename 2"));
+        Course renamedFirst = new Course(first.getId(), "Bulk renamed 1", null, null, createdAt.plusDays(1));
+        Course renamedSecond = new Course(second.getId(), "Bulk renamed 2", null, null, createdAt.plusDays(1));
+        Course missing = new Course(-1, "Bulk renamed missing", null, null, createdAt.plusDays(1));
+
+        List<CourseUpdate> updates = courseJdbcRepository.updateAll(Arrays.asList(renamedFirst, missing, renamedSecond));
+
+        Assertions.assertEquals(2, updates.size());
+        Assertions.assertEquals(List.of("Bulk rename 1", "Bulk rename 2"), updates.stream()
+                .map(CourseUpdate::getPreviousName).sorted().collect(Collectors.toList()));
+        Assertions.assertEquals(List.of("Bulk renamed 1", "Bulk renamed 2"), courseJdbcRepository.findAllById(List.of(first.getId(), second.getId()))
+                .stream().map(Course::getName).sorted().collect(Collectors.toList()));
+        Assertions.assertEquals(List.of(), courseJdbcRepository.findExistingNames(List.of("Bulk rename 1", "Bulk rename 2")));
+    }
+
+    private Course course(String name) {
+        Course course = new Course(name, "course description here");
+        course.setCreatedAt(createdAt);
+        return course;
+    }
+
+    private List<String> namesChangedSince(long seq) {
+        return courseJdbcRepository.findChangesSince(seq, 100).stream()
+                .map(change -> change.getCourse().getName()).collect(Collectors.toList());
+    }
+
+    private List<Operation> operationsSince(long seq) {
+        courseJdbcRepository.sequenceChanges();
+        return courseJdbcRepository.findChangesSince(seq, 100).stream()
+                .map(CourseChange::getOperation).collect(Collectors.toList());
+    }
+
+    private long latestSeq() {
+        courseJdbcRepository.sequenceChanges();
+        List<CourseChange> changes = courseJdbcRepository.findChangesSince(0, Integer.MAX_VALUE);
+        return changes.isEmpty() ? 0 : changes.get(changes.size() - 1).getSeq();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
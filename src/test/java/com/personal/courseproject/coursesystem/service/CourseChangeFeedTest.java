@@ -0,0 +1,118 @@
+package com.personal.courseproject.coursesystem.service;
+
+import com.personal.courseproject.coursesystem.Course;
+import com.personal.courseproject.coursesystem.CourseChange;
+import com.personal.courseproject.coursesystem.repository.CourseJdbcRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+class CourseChangeFeedTest {
+    private CourseJdbcRepository courseJdbcRepository;
+    private CourseChangeFeed courseChangeFeed;
+    private CourseChange created;
+    private CourseChange updated;
+
+    @BeforeEach
+    void setUp() {
+        courseJdbcRepository = mock(CourseJdbcRepository.class);
+        courseChangeFeed = new CourseChangeFeed(courseJdbcRepository);
+        Course course = new Course(1, "API Development using SpringBoot", "course description here",
+                LocalDateTime.of(2021, 10, 25, 15, 45, 35), null, 0);
+        created = new CourseChange(4, CourseChange.Operation.CREATED, course, LocalDateTime.of(2021, 10, 25, 15, 45, 35));
+        updated = new CourseChange(5, CourseChange.Operation.UPDATED, course, LocalDateTime.of(2021, 10, 25, 15, 45, 36));
+    }
+
+    @AfterEach
+    void tearDown() {
+        courseChangeFeed.shutdown();
+    }
+
+    @Test
+    void should_wake_subscriber_when_changes_arrive() throws Exception {
+        when(courseJdbcRepository.findChangesSince(3, 1000)).thenReturn(Collections.emptyList());
+        CompletableFuture<List<CourseChange>> received = new CompletableFuture<>();
+        courseChangeFeed.subscribe(3, 100, received::complete);
+        verify(courseJdbcRepository, timeout(5000)).findChangesSince(3, 1000);
+        Assertions.assertFalse(received.isDone());
+
+        when(courseJdbcRepository.findChangesSince(3, 1000)).thenReturn(Arrays.asList(created, updated));
+        courseChangeFeed.changed();
+
+        Assertions.assertEquals(Arrays.asList(created, updated), received.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void should_number_changes_after_a_write_even_without_subscribers() {
+        courseChangeFeed.changed();
+
+        verify(courseJdbcRepository, timeout(5000)).sequenceChanges();
+        verify(courseJdbcRepository, after(200).never()).findChangesSince(anyLong(), anyInt());
+    }
+
+    @Test
+    void should_serve_all_subscribers_from_one_read_within_their_limits() throws Exception {
+        when(courseJdbcRepository.findChangesSince(anyLong(), anyInt())).thenReturn(Collections.emptyList());
+        CompletableFuture<List<CourseChange>> fromStart = new CompletableFuture<>();
+        CompletableFuture<List<CourseChange>> afterCreate = new CompletableFuture<>();
+        courseChangeFeed.subscribe(3, 1, fromStart::complete);
+        courseChangeFeed.subscribe(4, 100, afterCreate::complete);
+        verify(courseJdbcRepository, after(200).atLeastOnce()).findChangesSince(3, 1000);
+        clearInvocations(courseJdbcRepository);
+
+        when(courseJdbcRepository.findChangesSince(3, 1000)).thenReturn(Arrays.asList(created, updated));
+        courseChangeFeed.changed();
+
+        Assertions.assertEquals(Collections.singletonList(created), fromStart.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(Collections.singletonList(updated), afterCreate.get(5, TimeUnit.SECONDS));
+        verify(courseJdbcRepository, times(1)).findChangesSince(anyLong(), anyInt());
+    }
+
+    @Test
+    void should_read_again_for_subscribers_beyond_a_full_read() throws Exception {
+        when(courseJdbcRepository.findChangesSince(anyLong(), anyInt())).thenReturn(Collections.emptyList());
+        CompletableFuture<List<CourseChange>> fromStart = new CompletableFuture<>();
+        CompletableFuture<List<CourseChange>> farAhead = new CompletableFuture<>();
+        courseChangeFeed.subscribe(0, 100, fromStart::complete);
+        courseChangeFeed.subscribe(5000, 100, farAhead::complete);
+        verify(courseJdbcRepository, after(200).atLeastOnce()).findChangesSince(0, 1000);
+
+        List<CourseChange> fullRead = new ArrayList<>();
+        for (long seq = 1; seq <= 1000; seq++) {
+            fullRead.add(new CourseChange(seq, CourseChange.Operation.CREATED, created.getCourse(), created.getChangedAt()));
+        }
+        CourseChange beyond = new CourseChange(5001, CourseChange.Operation.UPDATED, updated.getCourse(), updated.getChangedAt());
+        when(courseJdbcRepository.findChangesSince(0, 1000)).thenReturn(fullRead);
+        when(courseJdbcRepository.findChangesSince(5000, 1000)).thenReturn(Collections.singletonList(beyond));
+        courseChangeFeed.changed();
+
+        Assertions.assertEquals(fullRead.subList(0, 100), fromStart.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(Collections.singletonList(beyond), farAhead.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void should_not_deliver_to_cancelled_subscriber() throws Exception {
+        when(courseJdbcRepository.findChangesSince(3, 1000)).thenReturn(Collections.emptyList());
+        CompletableFuture<List<CourseChange>> received = new CompletableFuture<>();
+        Runnable cancel = courseChangeFeed.subscribe(3, 100, received::complete);
+        verify(courseJdbcRepository, timeout(5000)).findChangesSince(3, 1000);
+
+        cancel.run();
+        when(courseJdbcRepository.findChangesSince(3, 1000)).thenReturn(Collections.singletonList(created));
+        courseChangeFeed.changed();
+
+        verify(courseJdbcRepository, after(200).times(1)).findChangesSince(3, 1000);
+        Assertions.assertFalse(received.isDone());
+    }
+}
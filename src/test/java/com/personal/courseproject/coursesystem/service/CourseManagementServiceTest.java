@@ -1,26 +1,60 @@
 package com.personal.courseproject.coursesystem.service;
 
 import com.personal.courseproject.coursesystem.Course;
-import com.personal.courseproject.coursesystem.repository.CourseRepository;
+import com.personal.courseproject.coursesystem.CourseChange;
+import com.personal.courseproject.coursesystem.CourseFormat;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.personal.courseproject.coursesystem.cache.CourseCache;
+import com.personal.courseproject.coursesystem.cache.CourseJsonCache;
+import com.personal.courseproject.coursesystem.cache.CourseListSnapshot;
+import com.personal.courseproject.coursesystem.exceptions.DuplicateCourseTitleException;
+import com.personal.courseproject.coursesystem.invalidation.InMemoryCourseInvalidationBus;
+import com.personal.courseproject.coursesystem.repository.CourseJdbcRepository;
+import com.personal.courseproject.coursesystem.repository.CourseUpdate;
+import com.personal.courseproject.coursesystem.writebehind.CourseWriteBehind;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
-import static java.util.Optional.ofNullable;
 import static org.mockito.Mockito.*;
 
 class CourseManagementServiceTest {
     @Mock
-    private CourseRepository courseRepository;
+    private CourseJdbcRepository courseJdbcRepository;
+
+    private CourseCache courseCache;
+
+    private CourseJsonCache courseJsonCache;
+
+    @Mock
+    private CourseChangeFeed courseChangeFeed;
+
+    private InMemoryCourseInvalidationBus courseInvalidationBus;
+
+    private final Clock clock = Clock.fixed(Instant.parse("2021-10-27T09:15:42.678Z"), ZoneOffset.UTC);
 
     @InjectMocks
     private CourseManagementService courseManagementService;
@@ -37,7 +71,11 @@ class CourseManagementServiceTest {
 
     @BeforeEach
     public void Setup() {
-        courseRepository = mock(CourseRepository.class);
+        courseJdbcRepository = mock(CourseJdbcRepository.class);
+        courseCache = new CourseCache(100, Duration.ofMinutes(5), Duration.ofSeconds(2));
+        courseJsonCache = new CourseJsonCache(new ObjectMapper().findAndRegisterModules(), Duration.ofSeconds(30));
+        courseChangeFeed = mock(CourseChangeFeed.class);
+        courseInvalidationBus = new InMemoryCourseInvalidationBus();
         courseList = new ArrayList<>() {
         };
         course1 = new Course(1, "API Development using SpringBoot", "course description here",
@@ -49,47 +87,364 @@ class CourseManagementServiceTest {
 
     @Test
     void should_get_list_of_courses() {
-        when(courseRepository.findAll()).thenReturn(courseList);
-        CourseManagementService courseManagementService = new CourseManagementService(courseRepository);
+        when(courseJdbcRepository.findAll()).thenReturn(courseList);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
 
         List<Course> courses = courseManagementService.getCourses();
 
         Assertions.assertEquals(courseList, courses);
     }
 
+    @Test
+    void should_serialize_course_list_in_binary_formats_with_epoch_timestamps() throws Exception {
+        courseList.add(course1);
+        when(courseJdbcRepository.findAll()).thenReturn(courseList);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+
+        for (CourseFormat format : List.of(CourseFormat.CBOR, CourseFormat.SMILE)) {
+            ObjectMapper mapper = format.createBinaryMapper();
+            CourseListSnapshot snapshot = courseManagementService.getCourseListSnapshot(format);
+
+            Assertions.assertEquals(courseList, mapper.readValue(snapshot.getBody(), new TypeReference<List<Course>>() { }));
+            Assertions.assertEquals(course1.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                    mapper.readTree(snapshot.getBody()).get(0).get("createdAt").longValue());
+            Assertions.assertSame(snapshot, courseManagementService.getCourseListSnapshot(format));
+        }
+        verify(courseJdbcRepository, times(2)).findAll();
+    }
+
+    @Test
+    void should_serialize_course_list_once_until_catalog_changes() throws Exception {
+        courseList.add(course1);
+        when(courseJdbcRepository.findAll()).thenReturn(courseList);
+        when(courseJdbcRepository.delete(1)).thenReturn(course1);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+
+        CourseListSnapshot snapshot = courseManagementService.getCourseListSnapshot(CourseFormat.JSON);
+        Assertions.assertSame(snapshot, courseManagementService.getCourseListSnapshot(CourseFormat.JSON));
+        verify(courseJdbcRepository, times(1)).findAll();
+        Assertions.assertEquals("[{\"id\":1,\"name\":\"API Development using SpringBoot\",\"description\":\"course description here\","
+                + "\"createdAt\":\"2021-10-25T15:45:35\",\"updatedAt\":\"2021-10-26T15:45:35\",\"version\":null}]",
+                new String(snapshot.getBody(), StandardCharsets.UTF_8));
+        try (InputStream gzipped = new GZIPInputStream(new ByteArrayInputStream(snapshot.getGzippedBody()))) {
+            Assertions.assertArrayEquals(snapshot.getBody(), gzipped.readAllBytes());
+        }
+
+        courseManagementService.deleteCourses(1);
+
+        Assertions.assertNotSame(snapshot, courseManagementService.getCourseListSnapshot(CourseFormat.JSON));
+        verify(courseJdbcRepository, times(2)).findAll();
+    }
+
+    @Test
+    void should_get_courses_by_ids_from_cache_and_one_query_for_misses() {
+        Course course3 = new Course(3, "API Development using SpringCloud", "course description here", localDateTime, null);
+        when(courseJdbcRepository.findById(1)).thenReturn(course1);
+        when(courseJdbcRepository.findAllById(any())).thenReturn(Collections.singletonList(course3));
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+        courseManagementService.getCoursesById(1);
+
+        List<Course> courses = courseManagementService.getCoursesByIds(Arrays.asList(3, 2, 1));
+
+        Assertions.assertEquals(Arrays.asList(course3, null, course1), courses);
+        verify(courseJdbcRepository, times(1)).findAllById(argThat(ids -> ids.equals(Arrays.asList(3, 2))
+                || ids.equals(Arrays.asList(2, 3))));
+        Assertions.assertEquals(course3, courseManagementService.getCoursesById(3));
+        verify(courseJdbcRepository, never()).findById(3);
+    }
+
+    @Test
+    void should_search_courses_through_jdbc_repository() {
+        courseList.add(course1);
+        when(courseJdbcRepository.search("springboot", 20, 10)).thenReturn(courseList);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+
+        List<Course> courses = courseManagementService.searchCourses("springboot", 20, 10);
+
+        Assertions.assertEquals(courseList, courses);
+        verify(courseJdbcRepository, never()).findAll();
+    }
+
+    @Test
+    void should_get_page_of_courses_after_given_id() {
+        courseList.add(course1);
+        when(courseJdbcRepository.findPageAfter(0, 10)).thenReturn(courseList);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+
+        List<Course> courses = courseManagementService.getCourses(null, 10);
+
+        Assertions.assertEquals(courseList, courses);
+        verify(courseJdbcRepository, never()).findAll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_stream_courses_from_jdbc_repository() {
+        Consumer<Course> consumer = mock(Consumer.class);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+
+        courseManagementService.streamCourses(consumer);
+
+        verify(courseJdbcRepository, times(1)).streamAll(consumer);
+    }
+
     @Test
     void should_get_courses_by_id() {
-        when(courseRepository.findById(1)).thenReturn(ofNullable(course1));
-        CourseManagementService courseManagementService = new CourseManagementService(courseRepository);
+        when(courseJdbcRepository.findById(1)).thenReturn(course1);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+
+        Course courses = courseManagementService.getCoursesById(1);
+
+        Assertions.assertEquals(course1, courses);
+        verify(courseJdbcRepository, times(1)).findById(1);
+    }
+
+    @Test
+    void should_serve_repeated_lookups_by_id_from_cache() {
+        when(courseJdbcRepository.findById(1)).thenReturn(course1);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
 
+        courseManagementService.getCoursesById(1);
         Course courses = courseManagementService.getCoursesById(1);
 
         Assertions.assertEquals(course1, courses);
-        verify(courseRepository, times(1)).findById(1);
+        verify(courseJdbcRepository, times(1)).findById(1);
+        Assertions.assertEquals(1L, courseManagementService.getCacheStats().getById().get("hits"));
+    }
+
+    @Test
+    void should_not_add_course_when_title_is_already_cached() {
+        when(courseJdbcRepository.findById(1)).thenReturn(course1);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+        courseManagementService.getCoursesById(1);
+
+        Course course = courseManagementService.addCourses(new Course("API Development using SpringBoot", "course description here"));
+
+        Assertions.assertNull(course);
+        verify(courseJdbcRepository, never()).insert(any(Course.class));
     }
 
     @Test
     void should_add_course() {
-        when(courseRepository.save(course1)).thenReturn(course1);
-        CourseManagementService courseManagementService = new CourseManagementService(courseRepository);
+        when(courseJdbcRepository.insert(course1)).thenReturn(course1);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
 
         Course course = (Course) courseManagementService.addCourses(course1);
 
         Assertions.assertEquals(course1, course);
-        verify(courseRepository, times(1)).save(course1);
+        verify(courseJdbcRepository, times(1)).insert(course1);
+    }
+
+    @Test
+    void should_stamp_added_course_with_clock_time_truncated_to_seconds() {
+        Course newCourse = new Course("API Development using SpringBoot", "course description here");
+        when(courseJdbcRepository.insert(newCourse)).thenReturn(course1);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+
+        courseManagementService.addCourses(newCourse);
+
+        Assertions.assertEquals(LocalDateTime.of(2021, 10, 27, 9, 15, 42), newCourse.getCreatedAt());
+    }
+
+    @Test
+    void should_not_add_course_when_title_violates_unique_index() {
+        when(courseJdbcRepository.insert(course1)).thenThrow(new DuplicateKeyException("duplicate key value violates unique constraint"));
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+
+        Course course = courseManagementService.addCourses(course1);
+
+        Assertions.assertNull(course);
+        Assertions.assertEquals(0L, courseManagementService.getCacheStats().getByName().get("size"));
+    }
+
+    @Test
+    void should_change_catalog_version_only_when_a_write_succeeds() {
+        when(courseJdbcRepository.insert(course1)).thenReturn(course1);
+        when(courseJdbcRepository.delete(1)).thenReturn(course2);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+        String initialVersion = courseManagementService.getCatalogVersion();
+
+        courseManagementService.addCourses(course1);
+        String versionAfterAdd = courseManagementService.getCatalogVersion();
+        courseManagementService.addCourses(new Course(course1.getName(), "course description here"));
+        courseManagementService.deleteCourses(1);
+
+        Assertions.assertNotEquals(initialVersion, versionAfterAdd);
+        Assertions.assertNotEquals(versionAfterAdd, courseManagementService.getCatalogVersion());
+        Assertions.assertEquals(versionAfterAdd.replaceAll("-\\d+$", "-2"), courseManagementService.getCatalogVersion());
+    }
+
+    @Test
+    void should_notify_change_feed_only_when_a_write_succeeds() {
+        when(courseJdbcRepository.insert(course1)).thenReturn(course1);
+        when(courseJdbcRepository.insert(course2)).thenThrow(new DuplicateKeyException("duplicate key value violates unique constraint"));
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+
+        courseManagementService.addCourses(course1);
+        courseManagementService.addCourses(course2);
+        courseManagementService.deleteCourses(1);
+
+        verify(courseChangeFeed, times(1)).changed();
+    }
+
+    @Test
+    void should_get_changes_from_change_feed() {
+        List<CourseChange> changes = Collections.singletonList(
+                new CourseChange(7, CourseChange.Operation.CREATED, course1, LocalDateTime.of(2021, 10, 27, 9, 15, 42)));
+        when(courseChangeFeed.getChanges(6, 100)).thenReturn(changes);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+
+        Assertions.assertEquals(changes, courseManagementService.getChanges(6, 100));
+    }
+
+    @Test
+    void should_import_courses_and_report_result_per_course() {
+        List<Course> courses = Arrays.asList(
+                new Course("API Development using SpringBoot", "course description here"),
+                new Course("API Development using SpringCloud", "course description here"),
+                new Course("API Development using SpringCloud", "course description here"),
+                new Course(null, "course description here"),
+                new Course("API Development using Quarkus", "course description here"));
+        when(courseJdbcRepository.findExistingNames(any())).thenReturn(Collections.singletonList("API Development using SpringBoot"));
+        when(courseJdbcRepository.insertAll(any())).thenReturn(new int[]{1, 0});
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+
+        List<CourseImportResult> results = courseManagementService.importCourses(courses.iterator());
+
+        Assertions.assertEquals(Arrays.asList(
+                CourseImportResult.rejected("API Development using SpringBoot", "Course with title API Development using SpringBoot already exists"),
+                CourseImportResult.created("API Development using SpringCloud"),
+                CourseImportResult.rejected("API Development using SpringCloud", "Course with title API Development using SpringCloud already exists"),
+                CourseImportResult.rejected(null, "Course title is required"),
+                CourseImportResult.rejected("API Development using Quarkus", "Course with title API Development using Quarkus already exists")), results);
+        verify(courseJdbcRepository, times(1)).findExistingNames(any());
+        verify(courseJdbcRepository, times(1)).insertAll(Arrays.asList(courses.get(1), courses.get(4)));
+    }
+
+    @Test
+    void should_summarize_import_with_first_rejections_only() {
+        List<Course> courses = Arrays.asList(
+                new Course(null, "course description here"),
+                new Course("API Development using SpringBoot", null),
+                new Course("API Development using SpringCloud", "course description here"),
+                new Course(null, "course description here"));
+        when(courseJdbcRepository.insertAll(any())).thenReturn(new int[]{1});
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 2);
+        CourseImportSummary summary = new CourseImportSummary(2);
+
+        courseManagementService.importCourses(courses.iterator(), summary);
+
+        Assertions.assertEquals(1, summary.getCreated());
+        Assertions.assertEquals(3, summary.getRejected());
+        Assertions.assertEquals(Arrays.asList(
+                CourseImportResult.rejected(null, "Course title is required"),
+                CourseImportResult.rejected("API Development using SpringBoot", "Course description is required")), summary.getRejections());
+    }
+
+    @Test
+    void should_import_courses_in_chunks() {
+        List<Course> courses = Arrays.asList(
+                new Course("API Development using SpringBoot", "course description here"),
+                new Course("API Development using SpringCloud", "course description here"),
+                new Course("API Development using Quarkus", "course description here"));
+        when(courseJdbcRepository.insertAll(any())).thenAnswer(invocation -> {
+            List<Course> chunk = invocation.getArgument(0);
+            int[] updateCounts = new int[chunk.size()];
+            Arrays.fill(updateCounts, 1);
+            return updateCounts;
+        });
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 2);
+
+        List<CourseImportResult> results = courseManagementService.importCourses(courses.iterator());
+
+        Assertions.assertEquals(3, results.size());
+        verify(courseJdbcRepository, times(2)).findExistingNames(any());
+        verify(courseJdbcRepository, times(2)).insertAll(any());
     }
 
     @Test
     void should_update_course_by_id() {
         course2.setName("API Development using SpringCloud");
         course2.setUpdatedAt(localDateTime);
-        when(courseRepository.findById(1)).thenReturn(Optional.ofNullable(course2));
-        when(courseRepository.save(course2)).thenReturn(course2);
-        CourseManagementService courseManagementService = new CourseManagementService(courseRepository);
+        when(courseJdbcRepository.update(1, "API Development using SpringCloud", LocalDateTime.of(2021, 10, 27, 9, 15, 42), null))
+                .thenReturn(new CourseUpdate(course2, "API Development using SpringBoot"));
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
 
         Course updateCourseResult = courseManagementService.updateCourses(1, updatedCourse);
 
         Assertions.assertEquals(course2, updateCourseResult);
+        verify(courseJdbcRepository, never()).findById(anyInt());
+    }
+
+    @Test
+    void should_not_queue_rename_to_a_title_that_already_exists() {
+        CourseWriteBehind courseWriteBehind = mock(CourseWriteBehind.class);
+        when(courseJdbcRepository.findById(1)).thenReturn(course2);
+        when(courseJdbcRepository.findExistingNames(Collections.singletonList("API Development using SpringCloud")))
+                .thenReturn(Collections.singletonList("API Development using SpringCloud"));
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, courseWriteBehind, clock, 1000);
+
+        Assertions.assertThrows(DuplicateCourseTitleException.class, () -> courseManagementService.queueCourseUpdate(1, updatedCourse));
+        verify(courseWriteBehind, never()).submit(any());
+    }
+
+    @Test
+    void should_reject_rename_to_a_title_that_already_exists() {
+        when(courseJdbcRepository.update(1, "API Development using SpringCloud", LocalDateTime.of(2021, 10, 27, 9, 15, 42), null))
+                .thenThrow(new DuplicateKeyException("duplicate key value violates unique constraint"));
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+
+        DuplicateCourseTitleException exception = Assertions.assertThrows(DuplicateCourseTitleException.class,
+                () -> courseManagementService.updateCourses(1, updatedCourse));
+
+        Assertions.assertEquals("Course with title API Development using SpringCloud already exists", exception.getMessage());
+        verify(courseChangeFeed, never()).changed();
+    }
+
+    @Test
+    void should_replace_cached_course_when_course_is_updated() {
+        when(courseJdbcRepository.findById(1)).thenReturn(course2);
+        Course renamedCourse = new Course(1, "API Development using SpringCloud", "course description here",
+                localDateTime, LocalDateTime.of(2021, 10, 27, 9, 15, 42), 1);
+        when(courseJdbcRepository.update(1, "API Development using SpringCloud", LocalDateTime.of(2021, 10, 27, 9, 15, 42), null))
+                .thenReturn(new CourseUpdate(renamedCourse, "API Development using SpringBoot"));
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+        courseManagementService.getCoursesById(1);
+
+        courseManagementService.updateCourses(1, updatedCourse);
+        Course cachedCourse = courseManagementService.getCoursesById(1);
+
+        Assertions.assertEquals("API Development using SpringCloud", cachedCourse.getName());
+        Assertions.assertEquals(LocalDateTime.of(2021, 10, 27, 9, 15, 42), cachedCourse.getUpdatedAt());
+        Assertions.assertEquals(1L, courseManagementService.getCacheStats().getById().get("size"));
+        Assertions.assertEquals(1L, courseManagementService.getCacheStats().getByName().get("size"));
+
+        when(courseJdbcRepository.insert(any(Course.class))).thenReturn(new Course(2, "API Development using SpringBoot", "course description here", localDateTime, null, 0));
+        Assertions.assertNotNull(courseManagementService.addCourses(new Course("API Development using SpringBoot", "course description here")));
+    }
+
+    @Test
+    void should_evict_cached_course_when_another_instance_updates_it() {
+        Course renamedCourse = new Course(1, "API Development using SpringCloud", "course description here",
+                localDateTime, LocalDateTime.of(2021, 10, 27, 9, 15, 42), 1);
+        when(courseJdbcRepository.findById(1)).thenReturn(course2, renamedCourse);
+        when(courseJdbcRepository.update(1, "API Development using SpringCloud", LocalDateTime.of(2021, 10, 27, 9, 15, 42), null))
+                .thenReturn(new CourseUpdate(renamedCourse, "API Development using SpringBoot"));
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+        CourseManagementService otherInstance = new CourseManagementService(courseJdbcRepository,
+                new CourseCache(100, Duration.ofMinutes(5), Duration.ofSeconds(2)),
+                new CourseJsonCache(new ObjectMapper().findAndRegisterModules(), Duration.ofSeconds(30)),
+                mock(CourseChangeFeed.class), courseInvalidationBus.join(), null, clock, 1000);
+        courseManagementService.getCoursesById(1);
+        String catalogVersion = courseManagementService.getCatalogVersion();
+
+        otherInstance.updateCourses(1, updatedCourse);
+
+        Assertions.assertEquals("API Development using SpringCloud", courseManagementService.getCoursesById(1).getName());
+        Assertions.assertNotEquals(catalogVersion, courseManagementService.getCatalogVersion());
+        Assertions.assertEquals(1L, courseManagementService.getCacheStats().getByName().get("size"));
+        verify(courseJdbcRepository, times(2)).findById(1);
+        verify(courseChangeFeed, times(1)).changed();
     }
 
     @Test
@@ -97,27 +452,52 @@ class CourseManagementServiceTest {
         Course updatedCourse = new Course();
         updatedCourse.setName(null);
         updatedCourse.setDescription("course description here");
-        CourseManagementService courseManagementService = new CourseManagementService(courseRepository);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
 
         Course updateCourseResult = courseManagementService.updateCourses(1, updatedCourse);
 
         Assertions.assertNull(updateCourseResult);
     }
 
+    @Test
+    void should_pass_expected_version_to_update_and_propagate_conflicts() {
+        updatedCourse.setVersion(3);
+        when(courseJdbcRepository.update(1, "API Development using SpringCloud", LocalDateTime.of(2021, 10, 27, 9, 15, 42), 3))
+                .thenThrow(new OptimisticLockingFailureException("Course with id=1 is no longer at version 3"));
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+        String catalogVersion = courseManagementService.getCatalogVersion();
+
+        Assertions.assertThrows(OptimisticLockingFailureException.class, () -> courseManagementService.updateCourses(1, updatedCourse));
+        Assertions.assertEquals(catalogVersion, courseManagementService.getCatalogVersion());
+    }
+
     @Test
     void should_delete_course_by_id() {
-        when(courseRepository.findById(1)).thenReturn(Optional.ofNullable(course2));
-        when(courseRepository.save(course2)).thenReturn(course2);
-        CourseManagementService courseManagementService = new CourseManagementService(courseRepository);
+        when(courseJdbcRepository.delete(1)).thenReturn(course2);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
 
         boolean deleteCourseResult = courseManagementService.deleteCourses(1);
 
         Assertions.assertTrue(deleteCourseResult);
+        verify(courseJdbcRepository, never()).findById(anyInt());
+    }
+
+    @Test
+    void should_evict_cached_course_when_course_is_deleted() {
+        when(courseJdbcRepository.findById(1)).thenReturn(course2);
+        when(courseJdbcRepository.delete(1)).thenReturn(course2);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
+        courseManagementService.getCoursesById(1);
+
+        courseManagementService.deleteCourses(1);
+
+        Assertions.assertEquals(0L, courseManagementService.getCacheStats().getById().get("size"));
+        Assertions.assertEquals(0L, courseManagementService.getCacheStats().getByName().get("size"));
     }
 
     @Test
     void should_not_delete_course_by_invalid_id() {
-        CourseManagementService courseManagementService = new CourseManagementService(courseRepository);
+        CourseManagementService courseManagementService = new CourseManagementService(courseJdbcRepository, courseCache, courseJsonCache, courseChangeFeed, courseInvalidationBus, null, clock, 1000);
 
         boolean deleteCourseResult = courseManagementService.deleteCourses(1);
 
@@ -0,0 +1,68 @@
+package com.personal.courseproject.coursesystem.throttle;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class AdaptiveConcurrencyLimitTest {
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void should_reject_requests_beyond_limit_until_one_is_released() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 2, 0);
+
+        Assertions.assertTrue(limit.tryAcquire());
+        Assertions.assertTrue(limit.tryAcquire());
+        Assertions.assertFalse(limit.tryAcquire());
+        limit.release(TimeUnit.SECONDS.toNanos(5));
+        Assertions.assertTrue(limit.tryAcquire());
+        Assertions.assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    void should_shrink_limit_when_latency_exceeds_target_down_to_minimum() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 10, TARGET);
+
+        for (int i = 0; i < 30; i++) {
+            limit.tryAcquire();
+            limit.release(TARGET * 2);
+        }
+
+        Assertions.assertEquals(2, limit.getLimit());
+        Assertions.assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void should_grow_limit_back_while_busy_and_fast() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 10, TARGET);
+        limit.tryAcquire();
+        limit.release(TARGET * 2);
+        Assertions.assertEquals(9, limit.getLimit());
+
+        for (int i = 0; i < 5; i++) {
+            limit.tryAcquire();
+        }
+        for (int i = 0; i < 5; i++) {
+            limit.release(TARGET / 2);
+        }
+
+        Assertions.assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void should_grow_limit_back_under_light_load() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 10, TARGET);
+        for (int i = 0; i < 30; i++) {
+            limit.tryAcquire();
+            limit.release(TARGET * 2);
+        }
+
+        for (int i = 0; i < 8; i++) {
+            limit.tryAcquire();
+            limit.release(TARGET / 2);
+        }
+
+        Assertions.assertEquals(10, limit.getLimit());
+    }
+}
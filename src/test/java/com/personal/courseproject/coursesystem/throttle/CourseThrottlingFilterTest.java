@@ -0,0 +1,148 @@
+package com.personal.courseproject.coursesystem.throttle;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.mockito.Mockito.*;
+
+class CourseThrottlingFilterTest {
+    private CourseThrottlingFilter filter;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        filter = filter("");
+        meterRegistry = new SimpleMeterRegistry();
+        filter.bindTo(meterRegistry);
+    }
+
+    @Test
+    void should_answer_429_with_retry_after_once_client_bucket_is_empty() throws Exception {
+        Assertions.assertEquals(200, perform(get("/api/courses/1", "client-a"), new MockFilterChain()).getStatus());
+        Assertions.assertEquals(200, perform(get("/api/courses/1", "client-a"), new MockFilterChain()).getStatus());
+
+        MockHttpServletResponse response = perform(get("/api/courses/1", "client-a"), new MockFilterChain());
+
+        Assertions.assertEquals(429, response.getStatus());
+        Assertions.assertEquals("1", response.getHeader("Retry-After"));
+        Assertions.assertEquals("{\"error\":\"Course request rate limit exceeded, please retry\"}", response.getContentAsString());
+        Assertions.assertEquals(200, perform(get("/api/courses/1", "client-b"), new MockFilterChain()).getStatus());
+        Assertions.assertEquals(1.0, meterRegistry.get("course.throttle.rejected")
+                .tags("endpoint", "get", "reason", "rate_limited").functionCounter().count());
+    }
+
+    @Test
+    void should_not_key_buckets_on_a_client_header_that_is_not_trusted() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = get("/api/courses/1", "client-a");
+            request.addHeader("X-Client-Id", "fresh-" + i);
+            Assertions.assertEquals(200, perform(request, new MockFilterChain()).getStatus());
+        }
+        MockHttpServletRequest request = get("/api/courses/1", "client-a");
+        request.addHeader("X-Client-Id", "fresh-2");
+
+        Assertions.assertEquals(429, perform(request, new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void should_key_buckets_on_the_trusted_client_header_behind_a_proxy() throws Exception {
+        filter = filter("X-Client-Id");
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = get("/api/courses/1", "proxy");
+            request.addHeader("X-Client-Id", "client-a");
+            Assertions.assertEquals(200, perform(request, new MockFilterChain()).getStatus());
+        }
+        MockHttpServletRequest request = get("/api/courses/1", "proxy");
+        request.addHeader("X-Client-Id", "client-b");
+
+        Assertions.assertEquals(200, perform(request, new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void should_shed_with_503_when_endpoint_class_is_at_its_limit() throws Exception {
+        FilterChain nestedListRequest = (request, response) -> {
+            MockHttpServletResponse nested = perform(get("/api/courses", "client-b"), new MockFilterChain());
+            Assertions.assertEquals(503, nested.getStatus());
+            Assertions.assertEquals("2", nested.getHeader("Retry-After"));
+            Assertions.assertEquals(200, perform(get("/api/courses/1", "client-b"), new MockFilterChain()).getStatus());
+        };
+
+        Assertions.assertEquals(200, perform(get("/api/courses", "client-a"), nestedListRequest).getStatus());
+        Assertions.assertEquals(200, perform(get("/api/courses", "client-c"), new MockFilterChain()).getStatus());
+        Assertions.assertEquals(1.0, meterRegistry.get("course.throttle.rejected")
+                .tags("endpoint", "list", "reason", "overloaded").functionCounter().count());
+    }
+
+    @Test
+    void should_not_shrink_adaptive_limits_for_long_running_exports_and_imports() throws Exception {
+        filter = new CourseThrottlingFilter(new ObjectMapper(), "", 100, 100, 1000, Duration.ofSeconds(2),
+                1, 4, 4, 4, 1, 1, Duration.ofNanos(1), Duration.ofNanos(1), Duration.ofNanos(1));
+        filter.bindTo(meterRegistry = new SimpleMeterRegistry());
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(200, perform(get("/api/courses/export", "client-a"), (request, response) -> sleep()).getStatus());
+            MockHttpServletRequest bulk = new MockHttpServletRequest("POST", "/api/courses/bulk");
+            bulk.setRemoteAddr("client-a");
+            Assertions.assertEquals(200, perform(bulk, (request, response) -> sleep()).getStatus());
+        }
+
+        Assertions.assertEquals(4.0, meterRegistry.get("course.throttle.limit").tag("endpoint", "list").gauge().value());
+        Assertions.assertEquals(4.0, meterRegistry.get("course.throttle.limit").tag("endpoint", "write").gauge().value());
+        Assertions.assertEquals(1.0, meterRegistry.get("course.throttle.limit").tag("endpoint", "stream").gauge().value());
+        Assertions.assertEquals(1.0, meterRegistry.get("course.throttle.limit").tag("endpoint", "bulk").gauge().value());
+    }
+
+    @Test
+    void should_classify_endpoints_and_leave_other_paths_alone() throws Exception {
+        Assertions.assertEquals(CourseThrottlingFilter.EndpointClass.LIST, CourseThrottlingFilter.classify("GET", "/api/courses/search"));
+        Assertions.assertEquals(CourseThrottlingFilter.EndpointClass.GET, CourseThrottlingFilter.classify("GET", "/api/courses/42"));
+        Assertions.assertEquals(CourseThrottlingFilter.EndpointClass.WRITE, CourseThrottlingFilter.classify("PUT", "/api/courses/42"));
+        Assertions.assertEquals(CourseThrottlingFilter.EndpointClass.STREAM, CourseThrottlingFilter.classify("GET", "/api/courses/export"));
+        Assertions.assertEquals(CourseThrottlingFilter.EndpointClass.STREAM, CourseThrottlingFilter.classify("GET", "/api/courses/stream"));
+        Assertions.assertEquals(CourseThrottlingFilter.EndpointClass.BULK, CourseThrottlingFilter.classify("POST", "/api/courses/bulk"));
+        Assertions.assertEquals(CourseThrottlingFilter.EndpointClass.BULK, CourseThrottlingFilter.classify("POST", "/api/courses/import"));
+        FilterChain chain = mock(FilterChain.class);
+
+        for (int i = 0; i < 5; i++) {
+            perform(get("/actuator/prometheus", "client-a"), chain);
+        }
+
+        verify(chain, times(5)).doFilter(any(), any());
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request, FilterChain chain) throws IOException, ServletException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static CourseThrottlingFilter filter(String trustedClientHeader) {
+        return new CourseThrottlingFilter(new ObjectMapper(), trustedClientHeader, 1, 2, 1000, Duration.ofSeconds(2),
+                1, 1, 1, 1, 1, 1, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+    }
+
+    private static MockHttpServletRequest get(String path, String remoteAddress) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr(remoteAddress);
+        return request;
+    }
+}
@@ -0,0 +1,40 @@
+package com.personal.courseproject.coursesystem.throttle;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class TokenBucketTest {
+    private static final long NOW = 5_000_000_000L;
+
+    @Test
+    void should_allow_burst_then_report_wait_for_next_token() {
+        TokenBucket tokenBucket = new TokenBucket(10, 3);
+
+        Assertions.assertEquals(0, tokenBucket.tryAcquire(NOW));
+        Assertions.assertEquals(0, tokenBucket.tryAcquire(NOW));
+        Assertions.assertEquals(0, tokenBucket.tryAcquire(NOW));
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(100), tokenBucket.tryAcquire(NOW));
+    }
+
+    @Test
+    void should_refill_one_token_per_interval() {
+        TokenBucket tokenBucket = new TokenBucket(10, 1);
+
+        Assertions.assertEquals(0, tokenBucket.tryAcquire(NOW));
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(60), tokenBucket.tryAcquire(NOW + TimeUnit.MILLISECONDS.toNanos(40)));
+        Assertions.assertEquals(0, tokenBucket.tryAcquire(NOW + TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+
+    @Test
+    void should_not_store_more_than_burst_while_idle() {
+        TokenBucket tokenBucket = new TokenBucket(10, 2);
+        long later = NOW + TimeUnit.MINUTES.toNanos(1);
+
+        tokenBucket.tryAcquire(NOW);
+        Assertions.assertEquals(0, tokenBucket.tryAcquire(later));
+        Assertions.assertEquals(0, tokenBucket.tryAcquire(later));
+        Assertions.assertTrue(tokenBucket.tryAcquire(later) > 0);
+    }
+}
@@ -0,0 +1,95 @@
+package com.personal.courseproject.coursesystem.writebehind;
+
+import com.personal.courseproject.coursesystem.Course;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.ToIntFunction;
+
+class CourseWriteBehindTest {
+    private final LocalDateTime updatedAt = LocalDateTime.of(2021, 11, 20, 10, 0);
+    private final List<List<Course>> flushes = new ArrayList<>();
+
+    @TempDir
+    Path journalDirectory;
+
+    @Test
+    void should_write_only_the_latest_update_of_each_course() {
+        CourseWriteBehind writeBehind = start(10, updates -> {
+            flushes.add(updates);
+            return updates.size();
+        });
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        writeBehind.bindTo(meterRegistry);
+
+        writeBehind.submit(update(1, "First"));
+        writeBehind.submit(update(2, "Other"));
+        writeBehind.submit(update(1, "Second"));
+        writeBehind.submit(update(1, "Third"));
+        writeBehind.flush();
+        writeBehind.stop();
+
+        Assertions.assertEquals(1, flushes.size());
+        Assertions.assertEquals(List.of(1, 2), List.of(flushes.get(0).get(0).getId(), flushes.get(0).get(1).getId()));
+        Assertions.assertEquals("Third", flushes.get(0).get(0).getName());
+        Assertions.assertEquals(updatedAt, flushes.get(0).get(0).getUpdatedAt());
+        Assertions.assertEquals(2, meterRegistry.get("course.write.behind.updates").tag("result", "coalesced").functionCounter().count());
+        Assertions.assertEquals(0, meterRegistry.get("course.write.behind.pending").gauge().value());
+    }
+
+    @Test
+    void should_write_acknowledged_updates_after_a_restart() {
+        CourseWriteBehind crashed = start(10, updates -> {
+            throw new DataAccessResourceFailureException("database is down");
+        });
+        crashed.submit(update(1, "Before the crash"));
+        crashed.flush();
+        crashed.submit(update(2, "After the failed flush"));
+
+        start(10, updates -> {
+            flushes.add(updates);
+            return updates.size();
+        }).stop();
+
+        Assertions.assertEquals(1, flushes.size());
+        Assertions.assertEquals("Before the crash", flushes.get(0).get(0).getName());
+        Assertions.assertEquals("After the failed flush", flushes.get(0).get(1).getName());
+    }
+
+    @Test
+    void should_reject_updates_while_the_queue_is_full() {
+        CourseWriteBehind writeBehind = start(1, updates -> {
+            flushes.add(updates);
+            return updates.size();
+        });
+
+        writeBehind.submit(update(1, "Queued"));
+
+        Assertions.assertThrows(RejectedExecutionException.class, () -> writeBehind.submit(update(2, "Rejected")));
+        writeBehind.flush();
+        writeBehind.submit(update(2, "Queued after the flush"));
+        writeBehind.stop();
+        Assertions.assertEquals(2, flushes.size());
+    }
+
+    private CourseWriteBehind start(int maxPending, ToIntFunction<List<Course>> writer) {
+        CourseWriteBehind writeBehind = new CourseWriteBehind(journalDirectory.toString(), Duration.ofHours(1),
+                maxPending, Duration.ZERO);
+        writeBehind.setWriter(writer);
+        writeBehind.start();
+        return writeBehind;
+    }
+
+    private Course update(int id, String name) {
+        return new Course(id, name, null, null, updatedAt, null);
+    }
+}